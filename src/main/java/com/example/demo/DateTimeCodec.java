@@ -0,0 +1,179 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+
+/**
+ * Codec of the "HH:mm dd/MM/yyyy" date times of the API, which prints and parses the 16 characters
+ * of years 1 to 9999 directly from and to the buffers of Jackson, without the intermediate Strings
+ * and parsed objects of a DateTimeFormatter.
+ *
+ * Anything else, like other years, invalid values or other JsonFormat patterns, is handed to the
+ * LocalDateTimeSerializer and LocalDateTimeDeserializer of the formatter, so the results and the
+ * errors are the same as with them.
+ */
+public final class DateTimeCodec {
+
+    public static final String PATTERN = "HH:mm dd/MM/yyyy";
+
+    public static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(PATTERN);
+
+    static final int LENGTH = PATTERN.length();
+
+    private static final ThreadLocal<char[]> BUFFERS = ThreadLocal.withInitial(() -> new char[LENGTH]);
+
+    private DateTimeCodec() {
+    }
+
+    /**
+     * Prints the date time in the first 16 characters of the buffer.
+     *
+     * @return false, printing nothing, if the year is not between 1 and 9999.
+     */
+    static boolean format(LocalDateTime value, char[] buffer) {
+        int year = value.getYear();
+        if (year < 1 || year > 9999) {
+            return false;
+        }
+        put2(buffer, 0, value.getHour());
+        buffer[2] = ':';
+        put2(buffer, 3, value.getMinute());
+        buffer[5] = ' ';
+        put2(buffer, 6, value.getDayOfMonth());
+        buffer[8] = '/';
+        put2(buffer, 9, value.getMonthValue());
+        buffer[11] = '/';
+        put2(buffer, 12, year / 100);
+        put2(buffer, 14, year % 100);
+        return true;
+    }
+
+    /**
+     * Parses the 16 characters starting at the offset.
+     *
+     * @return the date time, or null if they are not a valid date time of years 1 to 9999 printed
+     * with two digits per field, which the formatter may parse differently or reject.
+     */
+    static LocalDateTime parse(char[] text, int offset) {
+        if (text[offset + 2] != ':' || text[offset + 5] != ' ' || text[offset + 8] != '/' || text[offset + 11] != '/') {
+            return null;
+        }
+        int hour = get2(text, offset);
+        int minute = get2(text, offset + 3);
+        int day = get2(text, offset + 6);
+        int month = get2(text, offset + 9);
+        int century = get2(text, offset + 12);
+        int yearOfCentury = get2(text, offset + 14);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || month < 1 || month > 12 || century < 0 || yearOfCentury < 0) {
+            return null;
+        }
+        int year = century * 100 + yearOfCentury;
+        // The formatter moves days past the end of the month back to its last day: leave them to it.
+        if (year < 1 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    private static void put2(char[] buffer, int index, int value) {
+        buffer[index] = (char) ('0' + value / 10);
+        buffer[index + 1] = (char) ('0' + value % 10);
+    }
+
+    /**
+     * @return the number of the two digits at the index, or -1 if one of them is not a digit.
+     */
+    private static int get2(char[] text, int index) {
+        int tens = text[index] - '0';
+        int units = text[index + 1] - '0';
+        if (tens < 0 || tens > 9 || units < 0 || units > 9) {
+            return -1;
+        }
+        return tens * 10 + units;
+    }
+
+    /**
+     * @return true if the JsonFormat of the property, if any, keeps the date times in the codec's pattern.
+     */
+    private static boolean usesPattern(JsonFormat.Value format) {
+        return format == null
+                || (!format.hasPattern() || PATTERN.equals(format.getPattern()))
+                && (format.getShape() == JsonFormat.Shape.ANY || format.getShape() == JsonFormat.Shape.STRING)
+                && !format.hasLenient();
+    }
+
+    public static class Serializer extends StdScalarSerializer<LocalDateTime> implements ContextualSerializer {
+
+        private final LocalDateTimeSerializer fallback = new LocalDateTimeSerializer(FORMATTER);
+
+        public Serializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            char[] buffer = BUFFERS.get();
+            if (format(value, buffer)) {
+                generator.writeString(buffer, 0, LENGTH);
+            } else {
+                fallback.serialize(value, generator, provider);
+            }
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+            if (usesPattern(findFormatOverrides(provider, property, handledType()))) {
+                return this;
+            }
+            return fallback.createContextual(provider, property);
+        }
+    }
+
+    public static class Deserializer extends StdScalarDeserializer<LocalDateTime> implements ContextualDeserializer {
+
+        private final LocalDateTimeDeserializer fallback = new LocalDateTimeDeserializer(FORMATTER);
+
+        public Deserializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.hasToken(JsonToken.VALUE_STRING) && parser.getTextLength() == LENGTH) {
+                LocalDateTime value = parse(parser.getTextCharacters(), parser.getTextOffset());
+                if (value != null) {
+                    return value;
+                }
+            }
+            return fallback.deserialize(parser, context);
+        }
+
+        @Override
+        public JsonDeserializer<?> createContextual(DeserializationContext context, BeanProperty property) throws JsonMappingException {
+            if (usesPattern(findFormatOverrides(context, property, handledType()))) {
+                return this;
+            }
+            return fallback.createContextual(context, property);
+        }
+    }
+}
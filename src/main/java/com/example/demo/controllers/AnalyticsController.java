@@ -0,0 +1,51 @@
+package com.example.demo.controllers;
+
+import com.example.demo.dto.UtilizationReport;
+import com.example.demo.services.AnalyticsService;
+import com.example.demo.services.GroupBy;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api")
+public class AnalyticsController {
+
+    @Autowired
+    AnalyticsService analyticsService;
+
+    /**
+     * Reports the booked minutes and utilization of each room or doctor per day and per week.
+     *
+     * @param from Start of the window, ISO format.
+     * @param to End of the window, ISO format, at most a year after from.
+     * @param groupBy "room" or "doctor".
+     */
+    @GetMapping("/analytics/utilization")
+    public ResponseEntity<UtilizationReport> getUtilization(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                            @RequestParam(value = "groupBy", defaultValue = "room") String groupBy){
+        GroupBy group;
+        try {
+            group = GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!from.isBefore(to) || ChronoUnit.DAYS.between(from, to) >= AnalyticsService.MAX_DAYS){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(analyticsService.utilization(from, to, group), HttpStatus.OK);
+    }
+
+}
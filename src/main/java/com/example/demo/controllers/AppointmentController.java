@@ -2,12 +2,27 @@ package com.example.demo.controllers;
 
 import com.example.demo.repositories.*;
 import com.example.demo.entities.*;
+import com.example.demo.dto.BatchReport;
+import com.example.demo.dto.Booking;
+import com.example.demo.services.AppointmentBatchService;
+import com.example.demo.services.AppointmentBookingService;
+import com.example.demo.services.AppointmentExportService;
+import com.example.demo.services.BulkDeleteService;
+import com.example.demo.services.Conflict;
+import com.example.demo.services.ReferenceBookingService;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -16,29 +31,150 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 
 @RestController
 @RequestMapping("/api")
 public class AppointmentController {
 
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    static final Sort AGENDA_ORDER = Sort.by("startsAt", "id");
+
+    static final String PREFER = "Prefer";
+
+    static final String PREFERENCE_APPLIED = "Preference-Applied";
+
+    static final String RETURN_MINIMAL = "return=minimal";
+
     @Autowired
     AppointmentRepository appointmentRepository;
 
+    @Autowired
+    AppointmentBookingService appointmentBookingService;
+
+    @Autowired
+    AppointmentBatchService appointmentBatchService;
+
+    @Autowired
+    AppointmentExportService appointmentExportService;
+
+    @Autowired
+    BulkDeleteService bulkDeleteService;
+
+    @Autowired
+    ReferenceBookingService referenceBookingService;
+
+    /**
+     * Without parameters, lists every appointment as before. With after or limit, returns one keyset page
+     * ordered by id, with the cursor of the next page in the X-Next-Cursor header.
+     * With any filter, returns the matching appointments ordered by start date, which can't be paged.
+     * With view=summary and no filter, the request is served by getAppointmentSummaries instead.
+     *
+     * @param after Cursor returned by the previous page, absent for the first one.
+     * @param limit Page size, 50 by default and 500 at most.
+     * @param view "full", the default, for the whole entities.
+     * @param room Filter on the room name.
+     * @param doctorId Filter on the doctor.
+     * @param patientId Filter on the patient.
+     * @param from Filter on the appointments finishing after this time, ISO format.
+     * @param to Filter on the appointments starting before this time, ISO format.
+     */
+    @VersionedBy({Appointment.class, Patient.class, Doctor.class, Room.class})
     @GetMapping("/appointments")
-    public ResponseEntity<List<Appointment>> getAllAppointments() {
-        List<Appointment> appointments = new ArrayList<>();
+    public ResponseEntity<List<Appointment>> getAllAppointments(@RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "view", defaultValue = "full") String view,
+            @RequestParam(value = "room", required = false) String room,
+            @RequestParam(value = "doctorId", required = false) Long doctorId,
+            @RequestParam(value = "patientId", required = false) Long patientId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!"full".equals(view)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (room != null || doctorId != null || patientId != null || from != null || to != null) {
+            if (after != null || limit != null || (from != null && to != null && !from.isBefore(to))) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+
+            List<Appointment> appointments = appointmentRepository.findAll(
+                    AppointmentSpecifications.matching(room, doctorId, patientId, from, to), AGENDA_ORDER);
+
+            if (appointments.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            return new ResponseEntity<>(appointments, HttpStatus.OK);
+        }
+        if (after == null && limit == null) {
+            List<Appointment> appointments = new ArrayList<>();
+
+            appointmentRepository.findAll().forEach(appointments::add);
+
+            if (appointments.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
 
-        appointmentRepository.findAll().forEach(appointments::add);
+            return new ResponseEntity<>(appointments, HttpStatus.OK);
+        }
 
-        if (appointments.isEmpty()) {
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        int size = limit != null ? limit : Cursors.DEFAULT_LIMIT;
+        Long afterId = after != null ? Cursors.decodeId(after) : Long.valueOf(0);
+        if (afterId == null || !Cursors.isValidLimit(size)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        return new ResponseEntity<>(appointments, HttpStatus.OK);
+        List<Appointment> page = appointmentRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size + 1));
+        return Cursors.page(page, size, appointment -> String.valueOf(appointment.getId()));
+    }
+
+    /**
+     * Same as getAllAppointments without filters, with the AppointmentSummary of each appointment, read with a query on its columns only.
+     */
+    @VersionedBy(Appointment.class)
+    @GetMapping(value = "/appointments", params = {"view=summary", "!room", "!doctorId", "!patientId", "!from", "!to"})
+    public ResponseEntity<List<AppointmentSummary>> getAppointmentSummaries(@RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        if (after == null && limit == null) {
+            List<AppointmentSummary> appointments = appointmentRepository.findAllSummaries();
+
+            if (appointments.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            return new ResponseEntity<>(appointments, HttpStatus.OK);
+        }
+
+        int size = limit != null ? limit : Cursors.DEFAULT_LIMIT;
+        Long afterId = after != null ? Cursors.decodeId(after) : Long.valueOf(0);
+        if (afterId == null || !Cursors.isValidLimit(size)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<AppointmentSummary> page = appointmentRepository.findSummariesAfter(afterId, PageRequest.of(0, size + 1));
+        return Cursors.page(page, size, summary -> String.valueOf(summary.getId()));
+    }
+
+    /**
+     * Exports every appointment as newline-delimited JSON, one appointment per line in id order.
+     * The rows are streamed from the database to the response outside of the request thread,
+     * without building the list in memory.
+     */
+    @GetMapping("/appointments/export")
+    public ResponseEntity<StreamingResponseBody> exportAppointments() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(NDJSON);
+        StreamingResponseBody body = out -> appointmentExportService.export(out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
+    @VersionedBy({Appointment.class, Patient.class, Doctor.class, Room.class})
     @GetMapping("/appointments/{id}")
     public ResponseEntity<Appointment> getAppointmentById(@PathVariable("id") long id) {
         Optional<Appointment> appointment = appointmentRepository.findById(id);
@@ -52,56 +188,156 @@ public class AppointmentController {
 
     /**
      * Validates the appointment received,
-     * checks if the appointment overlap with any other appointment
-     * and if two conditions are fine, the appointment is created
+     * asks the database if the appointment overlaps with any other appointment of its room, its doctor or its patient
+     * and if two conditions are fine, the appointment is created.
+     * The check and the insert run under the locks of the room, the doctor and the patient, so concurrent
+     * bookings sharing any of them can't both pass the check, while other bookings are not blocked.
+     *
+     * With the header Prefer: return=minimal, only the new appointment is returned instead of the whole table.
      *
      * @param appointment Appointment received through the endpoint .
+     * @param prefer Prefer header of the request, absent by default.
      * @return ResponseEntity with the appointmentList with the new appointment added and an HTTP OK response if successful.
-     * ResponseEntity with HTTP NOT_ACCEPTABLE if appointment is overlying with another one.
+     * With return=minimal, ResponseEntity with the new appointment, its URL in the Location header and an HTTP CREATED response.
+     * ResponseEntity with HTTP NOT_ACCEPTABLE if appointment is overlying with another one of the same room, doctor or patient.
      * ResponseEntity with HTTP BAD_REQUEST if the appointment doesn't go through the validations.
      */
     @PostMapping("/appointment")
-    public ResponseEntity<List<Appointment>> createAppointment(@RequestBody Appointment appointment) {
-        if (appointment.getStartsAt() == null || appointment.getFinishesAt() == null || appointment.getStartsAt().isAfter(appointment.getFinishesAt()) || appointment.getStartsAt().isEqual(appointment.getFinishesAt())) {
+    public ResponseEntity<?> createAppointment(@RequestBody Appointment appointment, @RequestHeader(value = PREFER, required = false) String prefer) {
+        if (!appointment.hasValidInterval()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (appointment.getRoom() == null || appointment.getRoom().getRoomName() == null) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
+        if (appointmentBookingService.book(appointment) != Conflict.NONE) {
+            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+        }
+
+        if (prefersMinimal(prefer)) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setLocation(ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/api/appointments/{id}").buildAndExpand(appointment.getId()).toUri());
+            headers.set(PREFERENCE_APPLIED, RETURN_MINIMAL);
+            return new ResponseEntity<>(appointment, headers, HttpStatus.CREATED);
+        }
+
         List<Appointment> appointmentsList = appointmentRepository.findAll();
 
-        // NOTE: I do not consider this to be efficient in a database with many appointments. The ideal would be to first extract the logic to a service,
-        // query the database and treat this as a batch, fetching the appointments as you iterate through an ordered list and only until an overlap is encountered
-        // But this cannot be done due to limitations in editing files other than this one and the test files.
-        for (Appointment existingAppointment : appointmentsList) {
-            if (appointment.overlaps(existingAppointment)) {
-                return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+        return new ResponseEntity<>(appointmentsList, HttpStatus.OK);
+    }
+
+    /**
+     * @return true if one of the preferences of the Prefer header, separated by commas, is return=minimal.
+     */
+    static boolean prefersMinimal(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            // Parameters of the preference follow a semicolon.
+            int end = preference.indexOf(';');
+            String token = (end < 0 ? preference : preference.substring(0, end)).trim();
+            if (token.equalsIgnoreCase(RETURN_MINIMAL)) {
+                return true;
             }
         }
+        return false;
+    }
 
-        Appointment savedAppointment = appointmentRepository.save(appointment);
-        appointmentsList.add(savedAppointment);
+    /**
+     * Creates a list of appointments in a single transaction.
+     * Each appointment goes through the same validations as in createAppointment,
+     * and is rejected if it overlaps with a stored appointment or with a previous
+     * appointment of the batch sharing its room, its doctor or its patient.
+     *
+     * @param appointments Appointments received through the endpoint.
+     * @return ResponseEntity with the report telling for each appointment if it was accepted, with its id, or rejected, with the reason, and an HTTP OK response.
+     * ResponseEntity with HTTP BAD_REQUEST if the list is empty.
+     * ResponseEntity with HTTP CONFLICT if a referenced patient or doctor doesn't exist, in which case nothing is created.
+     */
+    @PostMapping("/appointments/batch")
+    public ResponseEntity<BatchReport> createAppointments(@RequestBody List<Appointment> appointments) {
+        if (appointments == null || appointments.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
 
-        return new ResponseEntity<>(appointmentsList, HttpStatus.OK);
+        try {
+            return new ResponseEntity<>(appointmentBatchService.createAll(appointments), HttpStatus.OK);
+        } catch (DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
     }
 
+    /**
+     * Creates an appointment whose room, doctor and patient are given by their keys, which must exist.
+     * It goes through the same validations and checks as in createAppointment, and is inserted
+     * without reading or writing its room, doctor and patient.
+     *
+     * @param booking Booking received through the endpoint, the doctor and the patient being optional.
+     * @return ResponseEntity with the booking and its id, its URL in the Location header and an HTTP CREATED response if successful.
+     * ResponseEntity with HTTP NOT_ACCEPTABLE if the appointment is overlying with another one of the same room, doctor or patient.
+     * ResponseEntity with HTTP CONFLICT if the room, the doctor or the patient doesn't exist.
+     * ResponseEntity with HTTP BAD_REQUEST if the booking doesn't go through the validations.
+     */
+    @PostMapping("/bookings")
+    public ResponseEntity<Booking> createBooking(@RequestBody Booking booking) {
+        if (booking.getRoomName() == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Doctor doctor = null;
+        if (booking.getDoctorId() != null) {
+            doctor = new Doctor();
+            doctor.setId(booking.getDoctorId());
+        }
+        Patient patient = null;
+        if (booking.getPatientId() != null) {
+            patient = new Patient();
+            patient.setId(booking.getPatientId());
+        }
+        Appointment appointment = new Appointment(patient, doctor, new Room(booking.getRoomName()), booking.getStartsAt(), booking.getFinishesAt());
+        if (!appointment.hasValidInterval()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
 
+        try {
+            if (referenceBookingService.book(appointment) != Conflict.NONE) {
+                return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+            }
+        } catch (DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+
+        booking.setId(appointment.getId());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/appointments/{id}").buildAndExpand(appointment.getId()).toUri());
+        return new ResponseEntity<>(booking, headers, HttpStatus.CREATED);
+    }
+
+    /**
+     * Deletes the appointment with one statement, without loading it. Its patient, doctor and room are kept.
+     */
     @DeleteMapping("/appointments/{id}")
     public ResponseEntity<HttpStatus> deleteAppointment(@PathVariable("id") long id) {
 
-        Optional<Appointment> appointment = appointmentRepository.findById(id);
-
-        if (!appointment.isPresent()) {
+        if (bulkDeleteService.deleteAppointment(id) == 0) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
-        appointmentRepository.deleteById(id);
-
         return new ResponseEntity<>(HttpStatus.OK);
 
     }
 
+    /**
+     * Empties the table with one set-based DELETE, without loading the rows. Their patients,
+     * doctors and rooms are kept.
+     */
     @DeleteMapping("/appointments")
     public ResponseEntity<HttpStatus> deleteAllAppointments() {
-        appointmentRepository.deleteAll();
+        bulkDeleteService.deleteAllAppointments();
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
@@ -0,0 +1,133 @@
+package com.example.demo.controllers;
+
+import com.example.demo.repositories.*;
+import com.example.demo.entities.*;
+import com.example.demo.dto.Occurrence;
+import com.example.demo.services.AppointmentSeriesService;
+import com.example.demo.services.Conflict;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api")
+public class AppointmentSeriesController {
+
+    static final int MAX_OCCURRENCES = 1000;
+
+    @Autowired
+    AppointmentSeriesRepository appointmentSeriesRepository;
+
+    @Autowired
+    AppointmentSeriesService appointmentSeriesService;
+
+    @Autowired
+    DoctorRepository doctorRepository;
+
+    @Autowired
+    PatientRepository patientRepository;
+
+    @GetMapping("/series")
+    public ResponseEntity<List<AppointmentSeries>> getAllSeries(){
+        List<AppointmentSeries> series = appointmentSeriesRepository.findAll();
+
+        if (series.isEmpty()){
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+
+        return new ResponseEntity<>(series, HttpStatus.OK);
+    }
+
+    @GetMapping("/series/{id}")
+    public ResponseEntity<AppointmentSeries> getSeriesById(@PathVariable("id") long id){
+        Optional<AppointmentSeries> series = appointmentSeriesRepository.findById(id);
+        if (!series.isPresent()){
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(series.get(), HttpStatus.OK);
+    }
+
+    /**
+     * Expands the occurrences of a series falling in a window, and only those.
+     *
+     * @param id Series id.
+     * @param from Start of the window, ISO format.
+     * @param to End of the window, ISO format.
+     */
+    @GetMapping("/series/{id}/occurrences")
+    public ResponseEntity<List<Occurrence>> getOccurrences(@PathVariable("id") long id,
+                                                           @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                           @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to){
+        if (!from.isBefore(to)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Optional<AppointmentSeries> series = appointmentSeriesRepository.findById(id);
+        if (!series.isPresent()){
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(Occurrence.between(series.get(), from, to), HttpStatus.OK);
+    }
+
+    /**
+     * Validates the series received and creates it if none of its occurrences overlaps with an appointment
+     * or another series of its room, doctor or patient. The room is created with the series if it doesn't
+     * exist, while the doctor and the patient, when given, must be stored already.
+     *
+     * @param series Series received through the endpoint.
+     * @return ResponseEntity with the series created and HTTP CREATED if successful.
+     * ResponseEntity with HTTP NOT_ACCEPTABLE if an occurrence overlaps with another booking.
+     * ResponseEntity with HTTP CONFLICT if the doctor or the patient doesn't exist.
+     * ResponseEntity with HTTP BAD_REQUEST if the series doesn't go through the validations.
+     */
+    @PostMapping("/series")
+    public ResponseEntity<AppointmentSeries> createSeries(@RequestBody AppointmentSeries series){
+        if (!series.hasValidRule() || series.getOccurrences() > MAX_OCCURRENCES
+                || series.getRoom() == null || series.getRoom().getRoomName() == null){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        if (series.getDoctor() != null){
+            Optional<Doctor> doctor = doctorRepository.findById(series.getDoctor().getId());
+            if (!doctor.isPresent()){
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+            series.setDoctor(doctor.get());
+        }
+        if (series.getPatient() != null){
+            Optional<Patient> patient = patientRepository.findById(series.getPatient().getId());
+            if (!patient.isPresent()){
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+            series.setPatient(patient.get());
+        }
+        if (appointmentSeriesService.create(series) != Conflict.NONE){
+            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+        }
+        return new ResponseEntity<>(series, HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/series/{id}")
+    public ResponseEntity<HttpStatus> deleteSeries(@PathVariable("id") long id){
+        if (!appointmentSeriesRepository.existsById(id)){
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        appointmentSeriesRepository.deleteById(id);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.example.demo.controllers;
+
+import com.example.demo.dto.FreeSlot;
+import com.example.demo.repositories.*;
+import com.example.demo.services.AvailabilityService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api")
+public class AvailabilityController {
+
+    static final int MAX_SLOTS = 100;
+
+    @Autowired
+    AvailabilityService availabilityService;
+
+    @Autowired
+    RoomRepository roomRepository;
+
+    @Autowired
+    DoctorRepository doctorRepository;
+
+    /**
+     * Lists the first free slots of a room between two dates.
+     *
+     * @param roomName Room.
+     * @param from Start of the search window, ISO format.
+     * @param to End of the search window, ISO format.
+     * @param duration Minimum length of a slot, in minutes.
+     * @param limit Maximum number of slots, up to 100.
+     */
+    @GetMapping("/rooms/{roomName}/availability")
+    public ResponseEntity<List<FreeSlot>> getRoomAvailability(@PathVariable("roomName") String roomName,
+                                                              @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                              @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                              @RequestParam("duration") long duration,
+                                                              @RequestParam(value = "limit", defaultValue = "10") int limit){
+        if (!isValidSearch(from, to, duration, limit)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!roomRepository.findByRoomName(roomName).isPresent()){
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(availabilityService.findRoomSlots(roomName, from, to, Duration.ofMinutes(duration), limit), HttpStatus.OK);
+    }
+
+    /**
+     * Lists the first free slots of a doctor between two dates.
+     *
+     * @param id Doctor id.
+     * @param from Start of the search window, ISO format.
+     * @param to End of the search window, ISO format.
+     * @param duration Minimum length of a slot, in minutes.
+     * @param limit Maximum number of slots, up to 100.
+     */
+    @GetMapping("/doctors/{id}/availability")
+    public ResponseEntity<List<FreeSlot>> getDoctorAvailability(@PathVariable("id") long id,
+                                                                @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                @RequestParam("duration") long duration,
+                                                                @RequestParam(value = "limit", defaultValue = "10") int limit){
+        if (!isValidSearch(from, to, duration, limit)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!doctorRepository.existsById(id)){
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(availabilityService.findDoctorSlots(id, from, to, Duration.ofMinutes(duration), limit), HttpStatus.OK);
+    }
+
+    private boolean isValidSearch(LocalDateTime from, LocalDateTime to, long duration, int limit){
+        return from.isBefore(to) && duration > 0 && duration <= Duration.between(from, to).toMinutes()
+                && limit > 0 && limit <= MAX_SLOTS;
+    }
+
+}
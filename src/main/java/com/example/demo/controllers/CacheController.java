@@ -0,0 +1,56 @@
+package com.example.demo.controllers;
+
+import com.example.demo.dto.CacheStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api")
+public class CacheController {
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Reports the hits and misses of each second-level cache region and of the query cache,
+     * or NOT_FOUND when hibernate.generate_statistics is off.
+     */
+    @GetMapping("/cache/statistics")
+    public ResponseEntity<CacheStatistics> getStatistics(){
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()){
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        List<CacheStatistics.Region> regions = new ArrayList<>(regionNames.length);
+        for (String regionName : regionNames){
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null){
+                continue;
+            }
+            regions.add(new CacheStatistics.Region(regionName, region.getHitCount(), region.getMissCount(), region.getPutCount()));
+        }
+        CacheStatistics.Region queries = new CacheStatistics.Region("queries", statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount());
+
+        return new ResponseEntity<>(new CacheStatistics(regions, queries, statistics.getPrepareStatementCount()), HttpStatus.OK);
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.example.demo.controllers;
+
+import com.example.demo.services.TableVersions;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Answers the conditional requests of the endpoints marked with VersionedBy from the table versions
+ * alone, so a 304 reads no row and serializes nothing.
+ */
+class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final TableVersions tableVersions;
+
+    private final EncodedResponses encodedResponses;
+
+    ConditionalGetInterceptor(TableVersions tableVersions, EncodedResponses encodedResponses) {
+        this.tableVersions = tableVersions;
+        this.encodedResponses = encodedResponses;
+    }
+
+    /**
+     * The ETag is computed before the endpoint reads the tables: a write committed in between makes the
+     * response newer than its ETag, so the next request gets a full response again, never a stale 304.
+     * The binary representations get ETags of their own, so a cache never answers one with another.
+     * Requests accepting no representation are left to the endpoint, which answers them 406.
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        VersionedBy versionedBy = ((HandlerMethod) handler).getMethodAnnotation(VersionedBy.class);
+        if (versionedBy == null) {
+            return true;
+        }
+        MediaType representation = encodedResponses.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        if (representation == null) {
+            return true;
+        }
+        String etag = encodedResponses.isDefault(representation)
+                ? tableVersions.etag(versionedBy.value())
+                : tableVersions.etag(representation.getSubtype(), versionedBy.value());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        // Sets the ETag header, and the 304 status when If-None-Match matches it.
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Keyset pagination of the list endpoints: a page is the first rows with a key greater than
+ * the one in the cursor, in key order, so every page costs one index range scan however deep it is.
+ * The cursor of the next page is returned in the X-Next-Cursor header while there are more rows.
+ */
+final class Cursors {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int DEFAULT_LIMIT = 50;
+
+    static final int MAX_LIMIT = 500;
+
+    private static final String PREFIX = "k:";
+
+    private Cursors() {
+    }
+
+    static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the key in the cursor, or null if it isn't a cursor returned by encode.
+     */
+    static String decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return decoded.startsWith(PREFIX) ? decoded.substring(PREFIX.length()) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the id in the cursor, or null if it isn't a cursor of a numeric key.
+     */
+    static Long decodeId(String cursor) {
+        String key = decode(cursor);
+        try {
+            return key != null ? Long.valueOf(key) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static boolean isValidLimit(int limit) {
+        return limit > 0 && limit <= MAX_LIMIT;
+    }
+
+    /**
+     * Builds the response of a page read with limit + 1 rows: the extra row, if any, only tells
+     * that there is a next page, whose cursor is the key of the last row returned.
+     */
+    static <T> ResponseEntity<List<T>> page(List<T> rows, int limit, Function<T, String> keyOf) {
+        if (rows.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            headers.set(NEXT_CURSOR_HEADER, encode(keyOf.apply(rows.get(limit - 1))));
+        }
+        return new ResponseEntity<>(rows, headers, HttpStatus.OK);
+    }
+}
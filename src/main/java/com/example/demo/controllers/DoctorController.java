@@ -2,20 +2,27 @@ package com.example.demo.controllers;
 
 import com.example.demo.repositories.*;
 import com.example.demo.entities.Doctor;
+import com.example.demo.dto.ImportReport;
+import com.example.demo.services.BulkDeleteService;
+import com.example.demo.services.ReferenceDataImportService;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 
@@ -26,27 +33,85 @@ public class DoctorController {
     @Autowired
     DoctorRepository doctorRepository;
 
+    @Autowired
+    EncodedResponses encodedResponses;
+
+    @Autowired
+    ReferenceDataImportService referenceDataImportService;
+
+    @Autowired
+    BulkDeleteService bulkDeleteService;
+
+    /**
+     * Without parameters, lists every doctor as before. With after or limit, returns one keyset page
+     * ordered by id, with the cursor of the next page in the X-Next-Cursor header.
+     * With view=summary, the request is served by getDoctorSummaries instead.
+     *
+     * @param after Cursor returned by the previous page, absent for the first one.
+     * @param limit Page size, 50 by default and 500 at most.
+     * @param view "full", the default, for the whole entities.
+     */
+    @VersionedBy(Doctor.class)
     @GetMapping("/doctors")
-    public ResponseEntity<List<Doctor>> getAllDoctors(){
-        List<Doctor> doctors = new ArrayList<>();
+    public ResponseEntity<List<Doctor>> getAllDoctors(@RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "view", defaultValue = "full") String view){
+        if (!"full".equals(view)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (after == null && limit == null){
+            List<Doctor> doctors = new ArrayList<>();
 
-        doctorRepository.findAll().forEach(doctors::add);
+            doctorRepository.findAll().forEach(doctors::add);
 
-        if (doctors.isEmpty()){
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            if (doctors.isEmpty()){
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            return new ResponseEntity<>(doctors, HttpStatus.OK);
+        }
+
+        int size = limit != null ? limit : Cursors.DEFAULT_LIMIT;
+        Long afterId = after != null ? Cursors.decodeId(after) : Long.valueOf(0);
+        if (afterId == null || !Cursors.isValidLimit(size)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        return new ResponseEntity<>(doctors, HttpStatus.OK);
+        List<Doctor> page = doctorRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size + 1));
+        return Cursors.page(page, size, doctor -> String.valueOf(doctor.getId()));
     }
 
-    @GetMapping("/doctors/{id}")
-    public ResponseEntity<Doctor> getDoctorById(@PathVariable("id") long id){
-        Optional<Doctor> doctor = doctorRepository.findById(id);
-        if (! doctor.isPresent()){
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    /**
+     * Same as getAllDoctors, with the PersonSummary of each doctor, read with a query on its columns only.
+     */
+    @VersionedBy(Doctor.class)
+    @GetMapping(value = "/doctors", params = "view=summary")
+    public ResponseEntity<List<PersonSummary>> getDoctorSummaries(@RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit){
+        if (after == null && limit == null){
+            List<PersonSummary> doctors = doctorRepository.findAllSummaries();
+
+            if (doctors.isEmpty()){
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            return new ResponseEntity<>(doctors, HttpStatus.OK);
+        }
+
+        int size = limit != null ? limit : Cursors.DEFAULT_LIMIT;
+        Long afterId = after != null ? Cursors.decodeId(after) : Long.valueOf(0);
+        if (afterId == null || !Cursors.isValidLimit(size)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        return new ResponseEntity<>(doctor.get(),HttpStatus.OK);
+        List<PersonSummary> page = doctorRepository.findSummariesAfter(afterId, PageRequest.of(0, size + 1));
+        return Cursors.page(page, size, summary -> String.valueOf(summary.getId()));
+    }
+
+    @VersionedBy(Doctor.class)
+    @GetMapping("/doctors/{id}")
+    public ResponseEntity<byte[]> getDoctorById(@PathVariable("id") long id, @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept){
+        return encodedResponses.response(Doctor.class, id, accept, () -> doctorRepository.findById(id));
     }
 
     @PostMapping("/doctor")
@@ -56,21 +121,54 @@ public class DoctorController {
         return new ResponseEntity<>(d, HttpStatus.CREATED);
     }
 
-    @DeleteMapping("/doctors/{id}")
-    public ResponseEntity<HttpStatus> deleteDoctor(@PathVariable("id") long id){
-        Optional<Doctor> doctor = doctorRepository.findById(id);
+    /**
+     * Creates many doctors at once, like createDoctor does for each one, inserted in JDBC batches in a single transaction.
+     *
+     * @return ResponseEntity with the number of doctors created and an HTTP CREATED response.
+     * ResponseEntity with HTTP BAD_REQUEST if the list is empty or has null items.
+     */
+    @PostMapping("/doctors/batch")
+    public ResponseEntity<ImportReport> createDoctors(@RequestBody List<Doctor> docs){
+        if (docs == null || docs.isEmpty() || docs.contains(null)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
 
-        if (! doctor.isPresent()){
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        List<Doctor> doctors = new ArrayList<>(docs.size());
+        for (Doctor doc : docs){
+            doctors.add(new Doctor(doc.getFirstName(), doc.getLastName(), doc.getAge(), doc.getEmail()));
         }
+        return new ResponseEntity<>(referenceDataImportService.persistAll(doctors), HttpStatus.CREATED);
+    }
 
-        doctorRepository.deleteById(id);
+    /**
+     * Deletes the doctor with one statement, without loading it.
+     *
+     * @return ResponseEntity with HTTP CONFLICT if appointments or series still reference it.
+     */
+    @DeleteMapping("/doctors/{id}")
+    public ResponseEntity<HttpStatus> deleteDoctor(@PathVariable("id") long id){
+        try {
+            if (bulkDeleteService.deleteDoctor(id) == 0){
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+        } catch (DataIntegrityViolationException e){
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    /**
+     * Empties the table with one set-based DELETE, without loading the rows.
+     *
+     * @return ResponseEntity with HTTP CONFLICT if appointments or series still reference some doctors.
+     */
     @DeleteMapping("/doctors")
     public ResponseEntity<HttpStatus> deleteAllDoctors(){
-        doctorRepository.deleteAll();
+        try {
+            bulkDeleteService.deleteAllDoctors();
+        } catch (DataIntegrityViolationException e){
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
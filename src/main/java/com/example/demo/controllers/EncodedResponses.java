@@ -0,0 +1,206 @@
+package com.example.demo.controllers;
+
+import com.example.demo.services.TableVersions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Least recently used cache of the encoded form of single rooms, doctors and patients, keyed by
+ * table, id and representation. Each entry remembers the version of its table when it was read:
+ * once the table changes the entry is stale, and is read and encoded again on its next request.
+ * A hit is written as is by the byte array converter, without touching the repository or Jackson.
+ *
+ * The versions only follow the writes of this instance, so entries also expire after a time to
+ * live, the one of the cache regions in ehcache.xml: rows changed by other instances or outside
+ * the application are picked up as soon as they are by the second-level cache.
+ *
+ * The representations are the ones of the Jackson converters of the application, JSON first,
+ * negotiated from the Accept header like Spring MVC does for the other endpoints.
+ *
+ * Without table versions, as in the controller tests, every request is read and encoded.
+ */
+public class EncodedResponses {
+
+    private static final class Entry {
+        private final long version;
+        private final long createdAt;
+        private final byte[] body;
+
+        Entry(long version, long createdAt, byte[] body) {
+            this.version = version;
+            this.createdAt = createdAt;
+            this.body = body;
+        }
+    }
+
+    private final List<AbstractJackson2HttpMessageConverter> converters = new ArrayList<>();
+
+    private final TableVersions tableVersions;
+
+    private final Map<String, Entry> entries;
+
+    private final long ttlMillis;
+
+    private final LongSupplier clock;
+
+    /**
+     * @param converters Message converters of the application, in order; the Jackson ones are used.
+     * @param ttlMillis Time to live of the entries, in milliseconds.
+     */
+    public EncodedResponses(List<HttpMessageConverter<?>> converters, TableVersions tableVersions, int maxEntries, long ttlMillis) {
+        this(converters, tableVersions, maxEntries, ttlMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Current time in milliseconds.
+     */
+    public EncodedResponses(List<HttpMessageConverter<?>> converters, TableVersions tableVersions, int maxEntries, long ttlMillis, LongSupplier clock) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof AbstractJackson2HttpMessageConverter) {
+                this.converters.add((AbstractJackson2HttpMessageConverter) converter);
+            }
+        }
+        if (this.converters.isEmpty()) {
+            throw new IllegalArgumentException("No Jackson message converter");
+        }
+        this.tableVersions = tableVersions;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * @param accept Accept header of the request, or null.
+     * @return the representation of the first accepted type that a converter writes, the first
+     * converter's one if any type is accepted, or null if none is.
+     */
+    public MediaType negotiate(String accept) {
+        int index = converterIndex(accept);
+        return index < 0 ? null : contentType(converters.get(index));
+    }
+
+    /**
+     * @return true if the representation is the one of the first converter, JSON.
+     */
+    public boolean isDefault(MediaType representation) {
+        return contentType(converters.get(0)).equals(representation);
+    }
+
+    /**
+     * The version is read before the entity: a write committed in between leaves an entry older
+     * than its version, which the next request after the bump won't use. Entries older than the
+     * time to live are read again too.
+     *
+     * @param table Entity table, whose version invalidates the entry.
+     * @param id Id of the entity in its table.
+     * @param representation Representation returned by negotiate.
+     * @param loader Reads the entity on a miss.
+     * @return the encoded entity, or null if it doesn't exist, which is not cached.
+     */
+    public byte[] get(Class<?> table, Object id, MediaType representation, Supplier<Optional<?>> loader) {
+        AbstractJackson2HttpMessageConverter converter = converterOf(representation);
+        if (tableVersions == null) {
+            return loader.get().map(entity -> encode(converter, entity)).orElse(null);
+        }
+
+        String key = table.getName() + ':' + id + ':' + representation;
+        long version = tableVersions.current(table);
+        long now = clock.getAsLong();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version && now - entry.createdAt < ttlMillis) {
+            return entry.body;
+        }
+
+        byte[] body = loader.get().map(entity -> encode(converter, entity)).orElse(null);
+        if (body != null) {
+            entries.put(key, new Entry(version, now, body));
+        }
+        return body;
+    }
+
+    /**
+     * @param accept Accept header of the request, or null.
+     * @return the response of get: the encoded entity with HTTP OK, HTTP NOT_FOUND,
+     * or HTTP NOT_ACCEPTABLE if no representation is accepted.
+     */
+    public ResponseEntity<byte[]> response(Class<?> table, Object id, String accept, Supplier<Optional<?>> loader) {
+        MediaType representation = negotiate(accept);
+        if (representation == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+        }
+        byte[] body = get(table, id, representation, loader);
+        if (body == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(representation);
+        headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT));
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private int converterIndex(String accept) {
+        List<MediaType> acceptedTypes;
+        try {
+            acceptedTypes = StringUtils.hasText(accept) ? MediaType.parseMediaTypes(accept) : Collections.singletonList(MediaType.ALL);
+        } catch (InvalidMediaTypeException e) {
+            return -1;
+        }
+        MediaType.sortBySpecificityAndQuality(acceptedTypes);
+        for (MediaType acceptedType : acceptedTypes) {
+            for (int i = 0; i < converters.size(); i++) {
+                if (acceptedType.isCompatibleWith(contentType(converters.get(i)))) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private AbstractJackson2HttpMessageConverter converterOf(MediaType representation) {
+        for (AbstractJackson2HttpMessageConverter converter : converters) {
+            if (contentType(converter).equals(representation)) {
+                return converter;
+            }
+        }
+        throw new IllegalArgumentException("No Jackson message converter for " + representation);
+    }
+
+    private static MediaType contentType(AbstractJackson2HttpMessageConverter converter) {
+        return converter.getSupportedMediaTypes().get(0);
+    }
+
+    private static byte[] encode(AbstractJackson2HttpMessageConverter converter, Object entity) {
+        try {
+            return converter.getObjectMapper().writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Can't encode " + entity.getClass().getSimpleName(), e);
+        }
+    }
+}
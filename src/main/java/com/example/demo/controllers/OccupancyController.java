@@ -0,0 +1,32 @@
+package com.example.demo.controllers;
+
+import com.example.demo.dto.OccupancyFootprint;
+import com.example.demo.services.SlotOccupancy;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api")
+public class OccupancyController {
+
+    @Autowired(required = false)
+    SlotOccupancy slotOccupancy;
+
+    /**
+     * Reports the memory used by the slot occupancy bitsets, or NOT_FOUND when they are disabled.
+     */
+    @GetMapping("/occupancy/footprint")
+    public ResponseEntity<OccupancyFootprint> getFootprint(){
+        if (slotOccupancy == null){
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(slotOccupancy.footprint(), HttpStatus.OK);
+    }
+
+}
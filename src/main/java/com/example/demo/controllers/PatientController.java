@@ -3,20 +3,27 @@ package com.example.demo.controllers;
 
 import com.example.demo.repositories.*;
 import com.example.demo.entities.Patient;
+import com.example.demo.dto.ImportReport;
+import com.example.demo.services.BulkDeleteService;
+import com.example.demo.services.ReferenceDataImportService;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 
@@ -27,26 +34,85 @@ public class PatientController {
     @Autowired
     PatientRepository patientRepository;
 
+    @Autowired
+    EncodedResponses encodedResponses;
+
+    @Autowired
+    ReferenceDataImportService referenceDataImportService;
+
+    @Autowired
+    BulkDeleteService bulkDeleteService;
+
+    /**
+     * Without parameters, lists every patient as before. With after or limit, returns one keyset page
+     * ordered by id, with the cursor of the next page in the X-Next-Cursor header.
+     * With view=summary, the request is served by getPatientSummaries instead.
+     *
+     * @param after Cursor returned by the previous page, absent for the first one.
+     * @param limit Page size, 50 by default and 500 at most.
+     * @param view "full", the default, for the whole entities.
+     */
+    @VersionedBy(Patient.class)
     @GetMapping("/patients")
-    public ResponseEntity<List<Patient>> getAllPatients(){
-        List<Patient> patients = new ArrayList<>();
+    public ResponseEntity<List<Patient>> getAllPatients(@RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "view", defaultValue = "full") String view){
+        if (!"full".equals(view)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (after == null && limit == null){
+            List<Patient> patients = new ArrayList<>();
 
-        patientRepository.findAll().forEach(patients::add);
+            patientRepository.findAll().forEach(patients::add);
 
-        if (patients.isEmpty()){
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            if (patients.isEmpty()){
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            return new ResponseEntity<>(patients, HttpStatus.OK);
+        }
+
+        int size = limit != null ? limit : Cursors.DEFAULT_LIMIT;
+        Long afterId = after != null ? Cursors.decodeId(after) : Long.valueOf(0);
+        if (afterId == null || !Cursors.isValidLimit(size)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        return new ResponseEntity<>(patients, HttpStatus.OK);
+        List<Patient> page = patientRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size + 1));
+        return Cursors.page(page, size, patient -> String.valueOf(patient.getId()));
     }
 
-    @GetMapping("/patients/{id}")
-    public ResponseEntity<Patient> getPatientById(@PathVariable("id") long id){
-        Optional<Patient> patient = patientRepository.findById(id);
-        if (! patient.isPresent()){
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    /**
+     * Same as getAllPatients, with the PersonSummary of each patient, read with a query on its columns only.
+     */
+    @VersionedBy(Patient.class)
+    @GetMapping(value = "/patients", params = "view=summary")
+    public ResponseEntity<List<PersonSummary>> getPatientSummaries(@RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit){
+        if (after == null && limit == null){
+            List<PersonSummary> patients = patientRepository.findAllSummaries();
+
+            if (patients.isEmpty()){
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            return new ResponseEntity<>(patients, HttpStatus.OK);
+        }
+
+        int size = limit != null ? limit : Cursors.DEFAULT_LIMIT;
+        Long afterId = after != null ? Cursors.decodeId(after) : Long.valueOf(0);
+        if (afterId == null || !Cursors.isValidLimit(size)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        return new ResponseEntity<>(patient.get(),HttpStatus.OK);
+
+        List<PersonSummary> page = patientRepository.findSummariesAfter(afterId, PageRequest.of(0, size + 1));
+        return Cursors.page(page, size, summary -> String.valueOf(summary.getId()));
+    }
+
+    @VersionedBy(Patient.class)
+    @GetMapping("/patients/{id}")
+    public ResponseEntity<byte[]> getPatientById(@PathVariable("id") long id, @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept){
+        return encodedResponses.response(Patient.class, id, accept, () -> patientRepository.findById(id));
     }
 
     @PostMapping("/patient")
@@ -56,19 +122,54 @@ public class PatientController {
         return new ResponseEntity<>(d, HttpStatus.CREATED);
     }
 
+    /**
+     * Creates many patients at once, like createPatient does for each one, inserted in JDBC batches in a single transaction.
+     *
+     * @return ResponseEntity with the number of patients created and an HTTP CREATED response.
+     * ResponseEntity with HTTP BAD_REQUEST if the list is empty or has null items.
+     */
+    @PostMapping("/patients/batch")
+    public ResponseEntity<ImportReport> createPatients(@RequestBody List<Patient> pats){
+        if (pats == null || pats.isEmpty() || pats.contains(null)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<Patient> patients = new ArrayList<>(pats.size());
+        for (Patient pat : pats){
+            patients.add(new Patient(pat.getFirstName(), pat.getLastName(), pat.getAge(), pat.getEmail()));
+        }
+        return new ResponseEntity<>(referenceDataImportService.persistAll(patients), HttpStatus.CREATED);
+    }
+
+    /**
+     * Deletes the patient with one statement, without loading it.
+     *
+     * @return ResponseEntity with HTTP CONFLICT if appointments or series still reference it.
+     */
     @DeleteMapping("/patients/{id}")
     public ResponseEntity<HttpStatus> deletePatient(@PathVariable("id") long id){
-        Optional<Patient> patient = patientRepository.findById(id);
-        if (! patient.isPresent()){
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        try {
+            if (bulkDeleteService.deletePatient(id) == 0){
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+        } catch (DataIntegrityViolationException e){
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         }
-        patientRepository.deleteById(id);
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    /**
+     * Empties the table with one set-based DELETE, without loading the rows.
+     *
+     * @return ResponseEntity with HTTP CONFLICT if appointments or series still reference some patients.
+     */
     @DeleteMapping("/patients")
     public ResponseEntity<HttpStatus> deleteAllPatients(){
-        patientRepository.deleteAll();
+        try {
+            bulkDeleteService.deleteAllPatients();
+        } catch (DataIntegrityViolationException e){
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
@@ -3,20 +3,27 @@ package com.example.demo.controllers;
 
 import com.example.demo.repositories.*;
 import com.example.demo.entities.Room;
+import com.example.demo.dto.ImportReport;
+import com.example.demo.services.BulkDeleteService;
+import com.example.demo.services.ReferenceDataImportService;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 
@@ -27,26 +34,52 @@ public class RoomController {
     @Autowired
     RoomRepository roomRepository;
 
+    @Autowired
+    EncodedResponses encodedResponses;
+
+    @Autowired
+    ReferenceDataImportService referenceDataImportService;
+
+    @Autowired
+    BulkDeleteService bulkDeleteService;
+
+    /**
+     * Without parameters, lists every room as before. With after or limit, returns one keyset page
+     * ordered by name, with the cursor of the next page in the X-Next-Cursor header.
+     *
+     * @param after Cursor returned by the previous page, absent for the first one.
+     * @param limit Page size, 50 by default and 500 at most.
+     */
+    @VersionedBy(Room.class)
     @GetMapping("/rooms")
-    public ResponseEntity<List<Room>> getAllRooms(){
-        List<Room> rooms = new ArrayList<>();
+    public ResponseEntity<List<Room>> getAllRooms(@RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit){
+        if (after == null && limit == null){
+            List<Room> rooms = new ArrayList<>();
+
+            roomRepository.findAll().forEach(rooms::add);
 
-        roomRepository.findAll().forEach(rooms::add);
+            if (rooms.isEmpty()){
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            return new ResponseEntity<>(rooms, HttpStatus.OK);
+        }
 
-        if (rooms.isEmpty()){
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        int size = limit != null ? limit : Cursors.DEFAULT_LIMIT;
+        String afterName = after != null ? Cursors.decode(after) : "";
+        if (afterName == null || !Cursors.isValidLimit(size)){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        return new ResponseEntity<>(rooms, HttpStatus.OK);
+        List<Room> page = roomRepository.findByRoomNameGreaterThanOrderByRoomNameAsc(afterName, PageRequest.of(0, size + 1));
+        return Cursors.page(page, size, Room::getRoomName);
     }
 
+    @VersionedBy(Room.class)
     @GetMapping("/rooms/{roomName}")
-    public ResponseEntity<Room> getRoomByRoomName(@PathVariable("roomName") String roomName){
-        Optional<Room> room = roomRepository.findByRoomName(roomName);
-        if (!room.isPresent()){
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
-        return new ResponseEntity<>(room.get(), HttpStatus.OK);
+    public ResponseEntity<byte[]> getRoomByRoomName(@PathVariable("roomName") String roomName, @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept){
+        return encodedResponses.response(Room.class, roomName, accept, () -> roomRepository.findByRoomName(roomName));
     }
 
     @PostMapping("/room")
@@ -56,19 +89,56 @@ public class RoomController {
         return new ResponseEntity<>(tmp, HttpStatus.CREATED);
     }
 
+    /**
+     * Creates many rooms at once, inserted in JDBC batches in a single transaction.
+     * As with createRoom, a room that already exists is left as it is.
+     *
+     * @return ResponseEntity with the number of rooms created and skipped and an HTTP CREATED response.
+     * ResponseEntity with HTTP BAD_REQUEST if the list is empty or has rooms without name.
+     */
+    @PostMapping("/rooms/batch")
+    public ResponseEntity<ImportReport> createRooms(@RequestBody List<Room> rooms){
+        if (rooms == null || rooms.isEmpty()){
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        for (Room room : rooms){
+            if (room == null || room.getRoomName() == null){
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        return new ResponseEntity<>(referenceDataImportService.createRooms(rooms), HttpStatus.CREATED);
+    }
+
+    /**
+     * Deletes the room with one statement, without loading it.
+     *
+     * @return ResponseEntity with HTTP CONFLICT if appointments or series still reference it.
+     */
     @DeleteMapping("/rooms/{roomName}")
     public ResponseEntity<HttpStatus> deleteRoom(@PathVariable("roomName") String roomName){
-        Optional<Room> room = roomRepository.findByRoomName(roomName);
-        if (! room.isPresent()){
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        try {
+            if (bulkDeleteService.deleteRoom(roomName) == 0){
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+        } catch (DataIntegrityViolationException e){
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         }
-        roomRepository.deleteByRoomName(roomName);
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    /**
+     * Empties the table with one set-based DELETE, without loading the rows.
+     *
+     * @return ResponseEntity with HTTP CONFLICT if appointments or series still reference some rooms.
+     */
     @DeleteMapping("/rooms")
     public ResponseEntity<HttpStatus> deleteAllRooms(){
-        roomRepository.deleteAll();
+        try {
+            bulkDeleteService.deleteAllRooms();
+        } catch (DataIntegrityViolationException e){
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
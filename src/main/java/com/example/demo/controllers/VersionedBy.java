@@ -0,0 +1,17 @@
+package com.example.demo.controllers;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose response only changes when one of the given entity tables changes.
+ * Its responses carry an ETag built from the table versions, and a request with a matching
+ * If-None-Match is answered 304 before the endpoint runs.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@interface VersionedBy {
+    Class<?>[] value();
+}
@@ -0,0 +1,42 @@
+package com.example.demo.controllers;
+
+import com.example.demo.services.TableVersions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    @Autowired(required = false)
+    TableVersions tableVersions;
+
+    @Autowired
+    HttpMessageConverters httpMessageConverters;
+
+    @Value("${accwe.response-cache.max-entries:10000}")
+    int responseCacheMaxEntries;
+
+    @Value("${accwe.response-cache.ttl-seconds:600}")
+    long responseCacheTtlSeconds;
+
+    @Bean
+    public EncodedResponses encodedResponses() {
+        return new EncodedResponses(httpMessageConverters.getConverters(), tableVersions, responseCacheMaxEntries,
+                TimeUnit.SECONDS.toMillis(responseCacheTtlSeconds));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (tableVersions != null) {
+            registry.addInterceptor(new ConditionalGetInterceptor(tableVersions, encodedResponses()));
+        }
+    }
+}
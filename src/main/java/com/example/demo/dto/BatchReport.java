@@ -0,0 +1,79 @@
+package com.example.demo.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-item outcome of a batch request, in the same order as the items received.
+ */
+public class BatchReport {
+
+    public enum Status { ACCEPTED, REJECTED }
+
+    public static class Item {
+        private final int index;
+        private final Status status;
+        private final Long id;
+        private final String reason;
+
+        private Item(int index, Status status, Long id, String reason) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.reason = reason;
+        }
+
+        public static Item accepted(int index, long id) {
+            return new Item(index, Status.ACCEPTED, id, null);
+        }
+
+        public static Item rejected(int index, String reason) {
+            return new Item(index, Status.REJECTED, null, reason);
+        }
+
+        public int getIndex() {
+            return this.index;
+        }
+
+        public Status getStatus() {
+            return this.status;
+        }
+
+        public Long getId() {
+            return this.id;
+        }
+
+        public String getReason() {
+            return this.reason;
+        }
+    }
+
+    private final List<Item> items;
+
+    public BatchReport(Item[] items) {
+        this.items = new ArrayList<>(Arrays.asList(items));
+    }
+
+    public int getAccepted() {
+        return count(Status.ACCEPTED);
+    }
+
+    public int getRejected() {
+        return count(Status.REJECTED);
+    }
+
+    public List<Item> getItems() {
+        return this.items;
+    }
+
+    private int count(Status status) {
+        int count = 0;
+        for (Item item : items) {
+            if (item.getStatus() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
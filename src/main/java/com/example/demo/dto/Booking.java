@@ -0,0 +1,87 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Appointment referring to its room, doctor and patient by their keys instead of embedding them.
+ * The doctor and the patient are optional.
+ */
+public class Booking {
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long id;
+
+    private String roomName;
+
+    private Long doctorId;
+
+    private Long patientId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    private LocalDateTime startsAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    private LocalDateTime finishesAt;
+
+    public Booking() {
+    }
+
+    public Booking(String roomName, Long doctorId, Long patientId, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        this.roomName = roomName;
+        this.doctorId = doctorId;
+        this.patientId = patientId;
+        this.startsAt = startsAt;
+        this.finishesAt = finishesAt;
+    }
+
+    public long getId() {
+        return this.id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getRoomName() {
+        return this.roomName;
+    }
+
+    public void setRoomName(String roomName) {
+        this.roomName = roomName;
+    }
+
+    public Long getDoctorId() {
+        return this.doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public Long getPatientId() {
+        return this.patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return this.startsAt;
+    }
+
+    public void setStartsAt(LocalDateTime startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public LocalDateTime getFinishesAt() {
+        return this.finishesAt;
+    }
+
+    public void setFinishesAt(LocalDateTime finishesAt) {
+        this.finishesAt = finishesAt;
+    }
+}
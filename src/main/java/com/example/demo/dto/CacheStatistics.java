@@ -0,0 +1,68 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Hits, misses and puts of the second-level cache regions and of the query cache since startup.
+ */
+public class CacheStatistics {
+
+    public static class Region {
+        private final String name;
+        private final long hits;
+        private final long misses;
+        private final long puts;
+
+        public Region(String name, long hits, long misses, long puts) {
+            this.name = name;
+            this.hits = hits;
+            this.misses = misses;
+            this.puts = puts;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public long getHits() {
+            return this.hits;
+        }
+
+        public long getMisses() {
+            return this.misses;
+        }
+
+        public long getPuts() {
+            return this.puts;
+        }
+
+        public double getHitRatio() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    private final List<Region> regions;
+    private final Region queries;
+    private final long statements;
+
+    public CacheStatistics(List<Region> regions, Region queries, long statements) {
+        this.regions = regions;
+        this.queries = queries;
+        this.statements = statements;
+    }
+
+    public List<Region> getRegions() {
+        return this.regions;
+    }
+
+    public Region getQueries() {
+        return this.queries;
+    }
+
+    /**
+     * JDBC statements prepared since startup, the database round trips the caches didn't save.
+     */
+    public long getStatements() {
+        return this.statements;
+    }
+}
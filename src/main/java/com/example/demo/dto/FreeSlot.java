@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * Free gap in the schedule of a room or a doctor, as the half-open interval [startsAt, finishesAt).
+ */
+public class FreeSlot {
+
+    @JsonFormat(pattern = "HH:mm dd/MM/yyyy")
+    private final LocalDateTime startsAt;
+
+    @JsonFormat(pattern = "HH:mm dd/MM/yyyy")
+    private final LocalDateTime finishesAt;
+
+    public FreeSlot(LocalDateTime startsAt, LocalDateTime finishesAt) {
+        this.startsAt = startsAt;
+        this.finishesAt = finishesAt;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return this.startsAt;
+    }
+
+    public LocalDateTime getFinishesAt() {
+        return this.finishesAt;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+/**
+ * Outcome of a bulk creation: the rows inserted, and the ones skipped because they already existed.
+ */
+public class ImportReport {
+
+    private final int created;
+
+    private final int skipped;
+
+    public ImportReport(int created, int skipped) {
+        this.created = created;
+        this.skipped = skipped;
+    }
+
+    public int getCreated() {
+        return this.created;
+    }
+
+    public int getSkipped() {
+        return this.skipped;
+    }
+}
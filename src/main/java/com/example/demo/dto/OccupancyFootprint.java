@@ -0,0 +1,47 @@
+package com.example.demo.dto;
+
+/**
+ * Memory used by the slot occupancy bitsets. The estimate adds the JVM overhead of each day to its words.
+ */
+public class OccupancyFootprint {
+
+    private final int slotMinutes;
+    private final int rooms;
+    private final long days;
+    private final long exactDays;
+    private final long bitsetBytes;
+    private final long estimatedBytes;
+
+    public OccupancyFootprint(int slotMinutes, int rooms, long days, long exactDays, long bitsetBytes, long estimatedBytes) {
+        this.slotMinutes = slotMinutes;
+        this.rooms = rooms;
+        this.days = days;
+        this.exactDays = exactDays;
+        this.bitsetBytes = bitsetBytes;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    public int getSlotMinutes() {
+        return this.slotMinutes;
+    }
+
+    public int getRooms() {
+        return this.rooms;
+    }
+
+    public long getDays() {
+        return this.days;
+    }
+
+    public long getExactDays() {
+        return this.exactDays;
+    }
+
+    public long getBitsetBytes() {
+        return this.bitsetBytes;
+    }
+
+    public long getEstimatedBytes() {
+        return this.estimatedBytes;
+    }
+}
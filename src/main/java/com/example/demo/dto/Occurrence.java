@@ -0,0 +1,80 @@
+package com.example.demo.dto;
+
+import com.example.demo.entities.AppointmentSeries;
+import com.example.demo.repositories.BookedInterval;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * One occurrence of an appointment series, expanded on demand.
+ */
+public class Occurrence implements BookedInterval {
+
+    private final int index;
+    private final String roomName;
+    private final Long doctorId;
+    private final Long patientId;
+
+    @JsonFormat(pattern = "HH:mm dd/MM/yyyy")
+    private final LocalDateTime startsAt;
+
+    @JsonFormat(pattern = "HH:mm dd/MM/yyyy")
+    private final LocalDateTime finishesAt;
+
+    private Occurrence(AppointmentSeries series, int index) {
+        this.index = index;
+        this.roomName = series.getRoom() != null ? series.getRoom().getRoomName() : null;
+        this.doctorId = series.getDoctor() != null ? series.getDoctor().getId() : null;
+        this.patientId = series.getPatient() != null ? series.getPatient().getId() : null;
+        this.startsAt = series.occurrenceStartsAt(index);
+        this.finishesAt = series.occurrenceFinishesAt(index);
+    }
+
+    /**
+     * Expands the occurrences of the series overlapping with [from, to), and only those.
+     */
+    public static List<Occurrence> between(AppointmentSeries series, LocalDateTime from, LocalDateTime to) {
+        List<Occurrence> occurrences = new ArrayList<>();
+        for (int k = series.firstOccurrenceFinishingAfter(from); k < series.getOccurrences() && series.occurrenceStartsAt(k).isBefore(to); k++) {
+            occurrences.add(new Occurrence(series, k));
+        }
+        return occurrences;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    @JsonIgnore
+    @Override
+    public String getRoomName() {
+        return this.roomName;
+    }
+
+    @JsonIgnore
+    @Override
+    public Long getDoctorId() {
+        return this.doctorId;
+    }
+
+    @JsonIgnore
+    @Override
+    public Long getPatientId() {
+        return this.patientId;
+    }
+
+    @Override
+    public LocalDateTime getStartsAt() {
+        return this.startsAt;
+    }
+
+    @Override
+    public LocalDateTime getFinishesAt() {
+        return this.finishesAt;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * Booked minutes of each room or doctor per day and per week of a window. The utilization of a
+ * period is its booked minutes over the minutes of the period falling inside the window.
+ */
+public class UtilizationReport {
+
+    public static class Period {
+        @JsonFormat(pattern = "dd/MM/yyyy")
+        private final LocalDate startsOn;
+        private final long bookedMinutes;
+        private final long availableMinutes;
+
+        public Period(LocalDate startsOn, long bookedMinutes, long availableMinutes) {
+            this.startsOn = startsOn;
+            this.bookedMinutes = bookedMinutes;
+            this.availableMinutes = availableMinutes;
+        }
+
+        public LocalDate getStartsOn() {
+            return this.startsOn;
+        }
+
+        public long getBookedMinutes() {
+            return this.bookedMinutes;
+        }
+
+        public long getAvailableMinutes() {
+            return this.availableMinutes;
+        }
+
+        public double getUtilization() {
+            return availableMinutes == 0 ? 0 : (double) bookedMinutes / availableMinutes;
+        }
+    }
+
+    public static class Entry {
+        private final String key;
+        private final long bookedMinutes;
+        private final List<Period> days;
+        private final List<Period> weeks;
+
+        public Entry(String key, long bookedMinutes, List<Period> days, List<Period> weeks) {
+            this.key = key;
+            this.bookedMinutes = bookedMinutes;
+            this.days = days;
+            this.weeks = weeks;
+        }
+
+        public String getKey() {
+            return this.key;
+        }
+
+        public long getBookedMinutes() {
+            return this.bookedMinutes;
+        }
+
+        public List<Period> getDays() {
+            return this.days;
+        }
+
+        public List<Period> getWeeks() {
+            return this.weeks;
+        }
+    }
+
+    private final String groupBy;
+    private final List<Entry> entries;
+
+    public UtilizationReport(String groupBy, List<Entry> entries) {
+        this.groupBy = groupBy;
+        this.entries = entries;
+    }
+
+    public String getGroupBy() {
+        return this.groupBy;
+    }
+
+    public List<Entry> getEntries() {
+        return this.entries;
+    }
+}
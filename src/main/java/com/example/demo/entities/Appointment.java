@@ -1,30 +1,55 @@
 package com.example.demo.entities;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+
 import com.fasterxml.jackson.annotation.JsonFormat;
 
+/**
+ * The patient, doctor and room are loaded lazily. Reads that return them use the
+ * "Appointment.references" entity graph to fetch them in the same query.
+ */
 @Entity
+@NamedEntityGraph(name = Appointment.REFERENCES, attributeNodes = {
+    @NamedAttributeNode("patient"),
+    @NamedAttributeNode("doctor"),
+    @NamedAttributeNode("room")
+})
+@Table(indexes = {
+    @Index(name = "idx_appointment_room_time", columnList = "room_id, startsAt, finishesAt"),
+    @Index(name = "idx_appointment_doctor_time", columnList = "doctor_id, startsAt, finishesAt"),
+    @Index(name = "idx_appointment_patient_time", columnList = "patient_id, startsAt, finishesAt")
+})
 public class Appointment {
 
+    public static final String REFERENCES = "Appointment.references";
+
+    /**
+     * Longest appointment accepted. It bounds from below the start dates the overlap checks
+     * read from the (key, startsAt, finishesAt) indexes.
+     */
+    public static final Duration MAX_DURATION = Duration.ofHours(24);
+
     @Id
-    @GeneratedValue(strategy=GenerationType.AUTO)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     private long id;
 
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "patient_id", referencedColumnName = "id")
     private Patient patient;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "doctor_id", referencedColumnName = "id")
     private Doctor doctor;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "room_id", referencedColumnName = "roomName")
     private Room room;
 
@@ -89,26 +114,46 @@ public class Appointment {
         this.room = room;
     }
     
+    /**
+     * @return true if both dates are set and the appointment starts before it finishes, lasting at most MAX_DURATION.
+     */
+    public boolean hasValidInterval(){
+        return this.getStartsAt() != null && this.getFinishesAt() != null && this.getStartsAt().isBefore(this.getFinishesAt())
+                && !this.getFinishesAt().isAfter(this.getStartsAt().plus(MAX_DURATION));
+    }
+
     public boolean overlaps( Appointment appointment){
-        /// True when:
-        // Case 1: A.starts == B.starts
-        // Case 2: A.finishes == B.finishes 
-        // Case 3: A.starts < B.finishes && B.finishes < A.finishes
-        // Case 4: B.starts < A.starts && A.finishes < B.finishes
         if (appointment.getRoom().getRoomName().equals(this.getRoom().getRoomName())){ 
-            if (this.getStartsAt().equals(appointment.getStartsAt()) || 
-                    appointment.getFinishesAt().equals(this.getFinishesAt())){
-                return true;
-                    }
-            if (appointment.getFinishesAt().isAfter(this.getStartsAt()) && appointment.getFinishesAt().isBefore(this.getFinishesAt())){
-                return true;
-            }
-            if ( appointment.getStartsAt().isAfter(this.getStartsAt()) && appointment.getStartsAt().isBefore(this.getFinishesAt())){
-                return true;
-            }
+            return overlapsInTime(appointment);
         }
         
         return false;
     }
 
+    public boolean overlapsInTime( Appointment appointment){
+        // Appointments are half-open intervals [startsAt, finishesAt), so two of them
+        // overlap when each one starts before the other one finishes. This covers equal
+        // starts, equal finishes, partial overlaps and one appointment containing the other,
+        // while back-to-back appointments (A.finishes == B.starts) are allowed.
+        return this.getStartsAt().isBefore(appointment.getFinishesAt())
+                && appointment.getStartsAt().isBefore(this.getFinishesAt());
+    }
+
+    /**
+     * Checks if both appointments overlap in time and share the room, the doctor or the patient.
+     * Doctors and patients are compared by id, and the ones not stored yet (id 0) never conflict.
+     *
+     * @param appointment Appointment to compare with.
+     * @return true if both appointments can't take place at the same time.
+     */
+    public boolean conflictsWith( Appointment appointment){
+        if (!overlapsInTime(appointment)){
+            return false;
+        }
+
+        return this.getRoom().getRoomName().equals(appointment.getRoom().getRoomName())
+                || (this.getDoctor() != null && appointment.getDoctor() != null && this.getDoctor().getId() != 0 && this.getDoctor().getId() == appointment.getDoctor().getId())
+                || (this.getPatient() != null && appointment.getPatient() != null && this.getPatient().getId() != 0 && this.getPatient().getId() == appointment.getPatient().getId());
+    }
+
 }
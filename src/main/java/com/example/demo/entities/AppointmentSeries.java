@@ -0,0 +1,213 @@
+package com.example.demo.entities;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import javax.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Appointment repeated every intervalDays days, a given number of times, stored as a single row.
+ * Its occurrences are computed on demand: occurrence k runs from startsAt + k * intervalDays
+ * to finishesAt + k * intervalDays.
+ *
+ * The patient, doctor and room are loaded lazily: the conflict checks only read their keys.
+ * Reads that return them use the "AppointmentSeries.references" entity graph.
+ */
+@Entity
+@NamedEntityGraph(name = AppointmentSeries.REFERENCES, attributeNodes = {
+    @NamedAttributeNode("patient"),
+    @NamedAttributeNode("doctor"),
+    @NamedAttributeNode("room")
+})
+@Table(indexes = {
+    @Index(name = "idx_series_room_time", columnList = "room_id, startsAt, lastFinishesAt"),
+    @Index(name = "idx_series_doctor_time", columnList = "doctor_id, startsAt, lastFinishesAt"),
+    @Index(name = "idx_series_patient_time", columnList = "patient_id, startsAt, lastFinishesAt")
+})
+public class AppointmentSeries {
+
+    public static final String REFERENCES = "AppointmentSeries.references";
+
+    @Id
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", referencedColumnName = "id")
+    private Patient patient;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", referencedColumnName = "id")
+    private Doctor doctor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_id", referencedColumnName = "roomName")
+    private Room room;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    private LocalDateTime startsAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    private LocalDateTime finishesAt;
+
+    private int intervalDays;
+
+    private int occurrences;
+
+    /**
+     * Finish of the last occurrence, stored so the series overlapping a window are found with a range query.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    private LocalDateTime lastFinishesAt;
+
+    public AppointmentSeries(){
+        super();
+    }
+
+    public AppointmentSeries(Patient patient, Doctor doctor, Room room, LocalDateTime startsAt, LocalDateTime finishesAt, int intervalDays, int occurrences){
+        this.patient = patient;
+        this.doctor = doctor;
+        this.room = room;
+        this.startsAt = startsAt;
+        this.finishesAt = finishesAt;
+        this.intervalDays = intervalDays;
+        this.occurrences = occurrences;
+        updateLastFinishesAt();
+    }
+
+    public long getId(){
+        return this.id;
+    }
+
+    public void setId(long id){
+        this.id = id;
+    }
+
+    public Patient getPatient(){
+        return this.patient;
+    }
+    public void setPatient(Patient patient){
+        this.patient = patient;
+    }
+
+    public Doctor getDoctor(){
+        return this.doctor;
+    }
+    public void setDoctor(Doctor doctor){
+        this.doctor = doctor;
+    }
+
+    public Room getRoom(){
+        return this.room;
+    }
+    public void setRoom(Room room){
+        this.room = room;
+    }
+
+    public LocalDateTime getStartsAt(){
+        return this.startsAt;
+    }
+    public void setStartsAt(LocalDateTime startsAt){
+        this.startsAt = startsAt;
+        updateLastFinishesAt();
+    }
+
+    public LocalDateTime getFinishesAt(){
+        return this.finishesAt;
+    }
+    public void setFinishesAt(LocalDateTime finishesAt){
+        this.finishesAt = finishesAt;
+        updateLastFinishesAt();
+    }
+
+    public int getIntervalDays(){
+        return this.intervalDays;
+    }
+    public void setIntervalDays(int intervalDays){
+        this.intervalDays = intervalDays;
+        updateLastFinishesAt();
+    }
+
+    public int getOccurrences(){
+        return this.occurrences;
+    }
+    public void setOccurrences(int occurrences){
+        this.occurrences = occurrences;
+        updateLastFinishesAt();
+    }
+
+    public LocalDateTime getLastFinishesAt(){
+        return this.lastFinishesAt;
+    }
+
+    private void updateLastFinishesAt(){
+        this.lastFinishesAt = this.finishesAt != null && this.occurrences > 0
+                ? this.finishesAt.plusDays((long) this.intervalDays * (this.occurrences - 1))
+                : null;
+    }
+
+    /**
+     * @return true if the first occurrence is a valid interval, the series repeats at least once
+     * every whole number of days and each occurrence finishes before the next one starts.
+     */
+    public boolean hasValidRule(){
+        return this.getStartsAt() != null && this.getFinishesAt() != null && this.getStartsAt().isBefore(this.getFinishesAt())
+                && this.getIntervalDays() > 0 && this.getOccurrences() > 0
+                && !this.getFinishesAt().isAfter(this.getStartsAt().plusDays(this.getIntervalDays()));
+    }
+
+    public LocalDateTime occurrenceStartsAt(int k){
+        return this.startsAt.plusDays((long) this.intervalDays * k);
+    }
+
+    public LocalDateTime occurrenceFinishesAt(int k){
+        return this.finishesAt.plusDays((long) this.intervalDays * k);
+    }
+
+    /**
+     * Index of the first occurrence finishing after the given time, computed arithmetically.
+     * Occurrences don't overlap, so their finishes are sorted like their starts.
+     *
+     * @return the index, or the number of occurrences if all of them finish before.
+     */
+    public int firstOccurrenceFinishingAfter(LocalDateTime time){
+        long period = Duration.ofDays(this.intervalDays).getSeconds();
+        // Occurrence k finishes after the time when finishesAt + k * period > time.
+        long k = Math.floorDiv(Duration.between(this.finishesAt, time).getSeconds(), period) + 1;
+        if (k < 0){
+            return 0;
+        }
+        return (int) Math.min(k, this.occurrences);
+    }
+
+    /**
+     * Checks if any occurrence overlaps with [startsAt, finishesAt), without expanding the series:
+     * only the first occurrence finishing after startsAt can start before finishesAt.
+     */
+    public boolean overlapsInTime(LocalDateTime startsAt, LocalDateTime finishesAt){
+        int k = firstOccurrenceFinishingAfter(startsAt);
+        return k < this.occurrences && occurrenceStartsAt(k).isBefore(finishesAt);
+    }
+
+    /**
+     * Checks if any occurrences of both series overlap. Only the occurrences of the shorter series
+     * inside the span of the other one are walked, each one checked arithmetically against it.
+     */
+    public boolean overlapsInTime(AppointmentSeries series){
+        if (series.getOccurrences() < this.occurrences){
+            return series.overlapsInTime(this);
+        }
+        for (int k = firstOccurrenceFinishingAfter(series.getStartsAt()); k < this.occurrences && occurrenceStartsAt(k).isBefore(series.getLastFinishesAt()); k++){
+            if (series.overlapsInTime(occurrenceStartsAt(k), occurrenceFinishesAt(k))){
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
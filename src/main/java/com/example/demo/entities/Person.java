@@ -1,8 +1,13 @@
 package com.example.demo.entities;
 
 import javax.persistence.MappedSuperclass;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+/**
+ * Lazy proxies of its subclasses are serialized without the fields Hibernate adds to them.
+ */
 @MappedSuperclass
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Person {
     private String firstName;
     private String lastName;
@@ -1,14 +1,195 @@
-
 package com.example.demo.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import com.example.demo.entities.Appointment;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, JpaSpecificationExecutor<Appointment> {
+    @EntityGraph(Appointment.REFERENCES)
     List<Appointment> findAll();
+
+    @EntityGraph(Appointment.REFERENCES)
+    Optional<Appointment> findById(Long id);
+
+    /**
+     * Appointments matching the filters, see AppointmentSpecifications, with their references.
+     */
+    @EntityGraph(Appointment.REFERENCES)
+    List<Appointment> findAll(Specification<Appointment> specification, Sort sort);
+
     Appointment save(Appointment appointment);
     void delete(Appointment appointment);
+
+    /**
+     * Deletes the row with one statement, without loading it. Nothing is cascaded.
+     *
+     * @return the number of rows deleted, 0 if there was none.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Appointment a where a.id = :id")
+    int deleteRowById(@Param("id") long id);
+
+    /**
+     * Empties the table with one statement, without loading the rows. Nothing is cascaded.
+     *
+     * @return the number of rows deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Appointment")
+    int deleteAllRows();
+
+    /**
+     * Keys and dates of one appointment, read without hydrating it.
+     */
+    @Query("select a.room.roomName as roomName, a.doctor.id as doctorId, a.patient.id as patientId, a.startsAt as startsAt, a.finishesAt as finishesAt "
+            + "from Appointment a where a.id = :id")
+    Optional<BookedInterval> findIntervalById(@Param("id") long id);
+
+    /**
+     * Checks the keys of a booking with one query.
+     *
+     * @return the references, or empty if the room doesn't exist.
+     */
+    @Query("select r.roomName as roomName, "
+            + "(select count(d) from Doctor d where d.id = :doctorId) as doctors, "
+            + "(select count(p) from Patient p where p.id = :patientId) as patients "
+            + "from Room r where r.roomName = :roomName")
+    Optional<BookingReferences> findBookingReferences(@Param("roomName") String roomName, @Param("doctorId") Long doctorId, @Param("patientId") Long patientId);
+
+    /**
+     * Keyset page: the first rows with an id greater than the given one, in id order, up to the page size.
+     */
+    @EntityGraph(Appointment.REFERENCES)
+    List<Appointment> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    /**
+     * Summaries of every appointment in id order. The keys of the references are read from the
+     * foreign key columns, without joining their tables.
+     */
+    @Query("select a.id as id, a.room.roomName as roomName, a.patient.id as patientId, a.doctor.id as doctorId, a.startsAt as startsAt, a.finishesAt as finishesAt "
+            + "from Appointment a order by a.id")
+    List<AppointmentSummary> findAllSummaries();
+
+    /**
+     * Keyset page of summaries, as findByIdGreaterThanOrderByIdAsc.
+     */
+    @Query("select a.id as id, a.room.roomName as roomName, a.patient.id as patientId, a.doctor.id as doctorId, a.startsAt as startsAt, a.finishesAt as finishesAt "
+            + "from Appointment a where a.id > :after order by a.id")
+    List<AppointmentSummary> findSummariesAfter(@Param("after") long after, Pageable pageable);
+
+    /**
+     * Ids of the appointments of the room overlapping with [startsAt, finishesAt) and starting after earliestStart.
+     * The room is compared on the foreign key column, so the whole condition is a range of the (room_id, startsAt, finishesAt) index.
+     */
+    @Query("select a.id from Appointment a where a.room.roomName = :roomName "
+            + "and a.startsAt > :earliestStart and a.startsAt < :finishesAt and a.finishesAt > :startsAt")
+    List<Long> findOverlappingInRoom(@Param("roomName") String roomName, @Param("earliestStart") LocalDateTime earliestStart,
+                                     @Param("startsAt") LocalDateTime startsAt, @Param("finishesAt") LocalDateTime finishesAt, Pageable pageable);
+
+    /**
+     * Same as findOverlappingInRoom, for the appointments of a doctor.
+     */
+    @Query("select a.id from Appointment a where a.doctor.id = :doctorId "
+            + "and a.startsAt > :earliestStart and a.startsAt < :finishesAt and a.finishesAt > :startsAt")
+    List<Long> findOverlappingForDoctor(@Param("doctorId") long doctorId, @Param("earliestStart") LocalDateTime earliestStart,
+                                        @Param("startsAt") LocalDateTime startsAt, @Param("finishesAt") LocalDateTime finishesAt, Pageable pageable);
+
+    /**
+     * Same as findOverlappingInRoom, for the appointments of a patient.
+     */
+    @Query("select a.id from Appointment a where a.patient.id = :patientId "
+            + "and a.startsAt > :earliestStart and a.startsAt < :finishesAt and a.finishesAt > :startsAt")
+    List<Long> findOverlappingForPatient(@Param("patientId") long patientId, @Param("earliestStart") LocalDateTime earliestStart,
+                                         @Param("startsAt") LocalDateTime startsAt, @Param("finishesAt") LocalDateTime finishesAt, Pageable pageable);
+
+    /**
+     * Checks if any appointment of the room overlaps with [startsAt, finishesAt).
+     * Runs as a single "select ... limit 1" range scan on the (room_id, startsAt, finishesAt) index.
+     * Appointments last at most Appointment.MAX_DURATION, so only those starting in
+     * (startsAt - MAX_DURATION, finishesAt) are read, however long the history of the room.
+     *
+     * @param roomName Room of the appointment.
+     * @param startsAt Start of the interval, inclusive.
+     * @param finishesAt End of the interval, exclusive.
+     * @return true if another appointment of the room overlaps with the interval.
+     */
+    default boolean existsOverlappingInRoom(String roomName, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        return !findOverlappingInRoom(roomName, startsAt.minus(Appointment.MAX_DURATION), startsAt, finishesAt, PageRequest.of(0, 1)).isEmpty();
+    }
+
+    /**
+     * Same as existsOverlappingInRoom, for the appointments of a doctor, on the (doctor_id, startsAt, finishesAt) index.
+     */
+    default boolean existsOverlappingForDoctor(long doctorId, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        return !findOverlappingForDoctor(doctorId, startsAt.minus(Appointment.MAX_DURATION), startsAt, finishesAt, PageRequest.of(0, 1)).isEmpty();
+    }
+
+    /**
+     * Same as existsOverlappingInRoom, for the appointments of a patient, on the (patient_id, startsAt, finishesAt) index.
+     */
+    default boolean existsOverlappingForPatient(long patientId, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        return !findOverlappingForPatient(patientId, startsAt.minus(Appointment.MAX_DURATION), startsAt, finishesAt, PageRequest.of(0, 1)).isEmpty();
+    }
+
+    /**
+     * Keys and dates of the appointments of the rooms overlapping with [from, to), sorted by start date.
+     */
+    @Query("select a.room.roomName as roomName, a.doctor.id as doctorId, a.patient.id as patientId, a.startsAt as startsAt, a.finishesAt as finishesAt "
+            + "from Appointment a where a.room.roomName in :roomNames and a.startsAt < :to and a.finishesAt > :from order by a.startsAt")
+    List<BookedInterval> findRoomIntervals(@Param("roomNames") Collection<String> roomNames, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Keys and dates of the appointments of the doctors overlapping with [from, to), sorted by start date.
+     */
+    @Query("select a.room.roomName as roomName, a.doctor.id as doctorId, a.patient.id as patientId, a.startsAt as startsAt, a.finishesAt as finishesAt "
+            + "from Appointment a where a.doctor.id in :doctorIds and a.startsAt < :to and a.finishesAt > :from order by a.startsAt")
+    List<BookedInterval> findDoctorIntervals(@Param("doctorIds") Collection<Long> doctorIds, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Keys and dates of the appointments of the patients overlapping with [from, to), sorted by start date.
+     */
+    @Query("select a.room.roomName as roomName, a.doctor.id as doctorId, a.patient.id as patientId, a.startsAt as startsAt, a.finishesAt as finishesAt "
+            + "from Appointment a where a.patient.id in :patientIds and a.startsAt < :to and a.finishesAt > :from order by a.startsAt")
+    List<BookedInterval> findPatientIntervals(@Param("patientIds") Collection<Long> patientIds, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Keys and dates of every appointment overlapping with [from, to), sorted by start date, read
+     * in chunks of the fetch size. Must be consumed and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select a.room.roomName as roomName, a.doctor.id as doctorId, a.patient.id as patientId, a.startsAt as startsAt, a.finishesAt as finishesAt "
+            + "from Appointment a where a.startsAt < :to and a.finishesAt > :from order by a.startsAt")
+    Stream<BookedInterval> streamIntervals(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Every appointment with its patient, doctor and room fetched in the same query, in id order,
+     * read in chunks of the fetch size. Must be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+        @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select a from Appointment a left join fetch a.patient left join fetch a.doctor left join fetch a.room order by a.id")
+    Stream<Appointment> streamAllOrderById();
 }
@@ -0,0 +1,46 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.example.demo.entities.AppointmentSeries;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface AppointmentSeriesRepository extends JpaRepository<AppointmentSeries, Long> {
+    @EntityGraph(AppointmentSeries.REFERENCES)
+    List<AppointmentSeries> findAll();
+
+    @EntityGraph(AppointmentSeries.REFERENCES)
+    Optional<AppointmentSeries> findById(Long id);
+
+    /**
+     * Series of the rooms whose span [startsAt, lastFinishesAt) overlaps with [from, to).
+     * Their occurrences may still all fall outside the window.
+     */
+    @Query("select s from AppointmentSeries s where s.room.roomName in :roomNames and s.startsAt < :to and s.lastFinishesAt > :from")
+    List<AppointmentSeries> findRoomSeries(@Param("roomNames") Collection<String> roomNames, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Same as findRoomSeries, for the series of the doctors.
+     */
+    @Query("select s from AppointmentSeries s where s.doctor.id in :doctorIds and s.startsAt < :to and s.lastFinishesAt > :from")
+    List<AppointmentSeries> findDoctorSeries(@Param("doctorIds") Collection<Long> doctorIds, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Same as findRoomSeries, for the series of the patients.
+     */
+    @Query("select s from AppointmentSeries s where s.patient.id in :patientIds and s.startsAt < :to and s.lastFinishesAt > :from")
+    List<AppointmentSeries> findPatientSeries(@Param("patientIds") Collection<Long> patientIds, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Every series whose span overlaps with [from, to).
+     */
+    @Query("select s from AppointmentSeries s where s.startsAt < :to and s.lastFinishesAt > :from")
+    List<AppointmentSeries> findSeriesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,51 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.criteria.Predicate;
+
+import com.example.demo.entities.Appointment;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filters of the appointment queries. Only the filters given become predicates, so a query on a room,
+ * doctor or patient and a time window is a range scan on the matching (key, startsAt, finishesAt) index.
+ */
+public final class AppointmentSpecifications {
+
+    private AppointmentSpecifications() {
+    }
+
+    /**
+     * @param roomName Room of the appointments, or null for any room.
+     * @param doctorId Doctor of the appointments, or null for any doctor.
+     * @param patientId Patient of the appointments, or null for any patient.
+     * @param from Appointments finishing after this time, or null for no lower bound.
+     * @param to Appointments starting before this time, or null for no upper bound.
+     */
+    public static Specification<Appointment> matching(String roomName, Long doctorId, Long patientId, LocalDateTime from, LocalDateTime to) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            // The ids are read from the foreign key columns, without joining the referenced tables.
+            if (roomName != null) {
+                predicates.add(builder.equal(root.get("room").get("roomName"), roomName));
+            }
+            if (doctorId != null) {
+                predicates.add(builder.equal(root.get("doctor").get("id"), doctorId));
+            }
+            if (patientId != null) {
+                predicates.add(builder.equal(root.get("patient").get("id"), patientId));
+            }
+            if (to != null) {
+                predicates.add(builder.lessThan(root.get("startsAt"), to));
+            }
+            if (from != null) {
+                predicates.add(builder.greaterThan(root.get("finishesAt"), from));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * Summary view of an appointment: the keys of its references instead of the entities, read from
+ * the appointment columns only, without hydrating any entity.
+ */
+public interface AppointmentSummary {
+    long getId();
+    String getRoomName();
+    Long getPatientId();
+    Long getDoctorId();
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    LocalDateTime getStartsAt();
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm dd/MM/yyyy")
+    LocalDateTime getFinishesAt();
+}
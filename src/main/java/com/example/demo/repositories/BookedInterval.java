@@ -0,0 +1,14 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection with the keys and dates of a booked appointment, read without hydrating the entity.
+ */
+public interface BookedInterval {
+    String getRoomName();
+    Long getDoctorId();
+    Long getPatientId();
+    LocalDateTime getStartsAt();
+    LocalDateTime getFinishesAt();
+}
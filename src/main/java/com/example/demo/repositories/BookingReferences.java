@@ -0,0 +1,10 @@
+package com.example.demo.repositories;
+
+/**
+ * Stored room of a booking, with the number of rows matching its doctor and its patient ids, 0 or 1.
+ */
+public interface BookingReferences {
+    String getRoomName();
+    long getDoctors();
+    long getPatients();
+}
@@ -4,10 +4,49 @@ import java.util.List;
 
 import com.example.demo.entities.Doctor;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     List<Doctor> findAll();
     Doctor save(Doctor doc);
     void delete(Doctor doc);
+
+    /**
+     * Deletes the row with one statement, without loading it. Nothing is cascaded.
+     *
+     * @return the number of rows deleted, 0 if there was none.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Doctor d where d.id = :id")
+    int deleteRowById(@Param("id") long id);
+
+    /**
+     * Empties the table with one statement, without loading the rows. Nothing is cascaded.
+     *
+     * @return the number of rows deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Doctor")
+    int deleteAllRows();
+
+    /**
+     * Keyset page: the first rows with an id greater than the given one, in id order, up to the page size.
+     */
+    List<Doctor> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    @Query("select d.id as id, d.firstName as firstName, d.lastName as lastName from Doctor d order by d.id")
+    List<PersonSummary> findAllSummaries();
+
+    /**
+     * Keyset page of summaries, as findByIdGreaterThanOrderByIdAsc.
+     */
+    @Query("select d.id as id, d.firstName as firstName, d.lastName as lastName from Doctor d where d.id > :after order by d.id")
+    List<PersonSummary> findSummariesAfter(@Param("after") long after, Pageable pageable);
 }
@@ -5,10 +5,49 @@ import java.util.List;
 
 import com.example.demo.entities.Patient;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface PatientRepository extends JpaRepository<Patient, Long> {
     List<Patient> findAll();
     Patient save(Patient doc);
     void delete(Patient doc);
+
+    /**
+     * Deletes the row with one statement, without loading it. Nothing is cascaded.
+     *
+     * @return the number of rows deleted, 0 if there was none.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Patient p where p.id = :id")
+    int deleteRowById(@Param("id") long id);
+
+    /**
+     * Empties the table with one statement, without loading the rows. Nothing is cascaded.
+     *
+     * @return the number of rows deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Patient")
+    int deleteAllRows();
+
+    /**
+     * Keyset page: the first rows with an id greater than the given one, in id order, up to the page size.
+     */
+    List<Patient> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    @Query("select p.id as id, p.firstName as firstName, p.lastName as lastName from Patient p order by p.id")
+    List<PersonSummary> findAllSummaries();
+
+    /**
+     * Keyset page of summaries, as findByIdGreaterThanOrderByIdAsc.
+     */
+    @Query("select p.id as id, p.firstName as firstName, p.lastName as lastName from Patient p where p.id > :after order by p.id")
+    List<PersonSummary> findSummariesAfter(@Param("after") long after, Pageable pageable);
 }
@@ -0,0 +1,10 @@
+package com.example.demo.repositories;
+
+/**
+ * Summary view of a patient or a doctor: its id and name, without the contact details.
+ */
+public interface PersonSummary {
+    long getId();
+    String getFirstName();
+    String getLastName();
+}
@@ -1,17 +1,61 @@
 
 package com.example.demo.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import com.example.demo.entities.Room;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface RoomRepository extends JpaRepository<Room, Long> {
     List<Room> findAll();
+    /**
+     * Answered from the query cache and the Room cache region while no room changes.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     Optional<Room> findByRoomName(String roomName);
     Room save(Room room);
     void delete(Room room);
     void deleteByRoomName(String roomName);
+
+    /**
+     * Deletes the row with one statement, without loading it. Nothing is cascaded.
+     *
+     * @return the number of rows deleted, 0 if there was none.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Room r where r.roomName = :roomName")
+    int deleteRowByRoomName(@Param("roomName") String roomName);
+
+    /**
+     * Empties the table with one statement, without loading the rows. Nothing is cascaded.
+     *
+     * @return the number of rows deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Room")
+    int deleteAllRows();
+
+    /**
+     * Keyset page: the first rooms with a name greater than the given one, in name order, up to the page size.
+     */
+    List<Room> findByRoomNameGreaterThanOrderByRoomNameAsc(String roomName, Pageable pageable);
+
+    /**
+     * @return the given names that are stored, read from the primary key alone.
+     */
+    @Query("select r.roomName from Room r where r.roomName in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
 }
@@ -0,0 +1,154 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.UtilizationReport;
+import com.example.demo.entities.AppointmentSeries;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.AppointmentSeriesRepository;
+import com.example.demo.repositories.BookedInterval;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Aggregates the booked time of the appointments in a single pass over the database rows.
+ */
+@Service
+public class AnalyticsService {
+
+    /**
+     * Longest window, in days, of a utilization report.
+     */
+    public static final int MAX_DAYS = 366;
+
+    @Autowired
+    AppointmentRepository appointmentRepository;
+
+    @Autowired
+    AppointmentSeriesRepository appointmentSeriesRepository;
+
+    /**
+     * Streams the appointments overlapping with [from, to) and adds the minutes of each one,
+     * clipped to the window and split at midnight, to a long[] of booked minutes per day of its
+     * room or doctor. Memory depends on the number of keys and days, not of appointments.
+     * The occurrences of the series in the window are added the same way, without expanding them.
+     * Appointments without the grouping key are skipped.
+     *
+     * @param from Start of the window.
+     * @param to End of the window, at most MAX_DAYS days after from.
+     * @param groupBy Key to aggregate by.
+     * @return the report, with the keys sorted.
+     */
+    @Transactional(readOnly = true)
+    public UtilizationReport utilization(LocalDateTime from, LocalDateTime to, GroupBy groupBy) {
+        LocalDate first = from.toLocalDate();
+        int days = (int) ChronoUnit.DAYS.between(first, to.minusNanos(1).toLocalDate()) + 1;
+        Map<String, long[]> bookedMinutes = new TreeMap<>();
+
+        try (Stream<BookedInterval> intervals = appointmentRepository.streamIntervals(from, to)) {
+            intervals.forEach(interval -> {
+                String key = keyOf(interval, groupBy);
+                if (key != null) {
+                    long[] minutes = bookedMinutes.computeIfAbsent(key, k -> new long[days]);
+                    addMinutes(minutes, first, max(interval.getStartsAt(), from), min(interval.getFinishesAt(), to));
+                }
+            });
+        }
+
+        for (AppointmentSeries series : appointmentSeriesRepository.findSeriesBetween(from, to)) {
+            String key = keyOf(series, groupBy);
+            if (key != null) {
+                long[] minutes = bookedMinutes.computeIfAbsent(key, k -> new long[days]);
+                for (int k = series.firstOccurrenceFinishingAfter(from); k < series.getOccurrences() && series.occurrenceStartsAt(k).isBefore(to); k++) {
+                    addMinutes(minutes, first, max(series.occurrenceStartsAt(k), from), min(series.occurrenceFinishesAt(k), to));
+                }
+            }
+        }
+
+        long[] availableMinutes = new long[days];
+        addMinutes(availableMinutes, first, from, to);
+
+        List<UtilizationReport.Entry> entries = new ArrayList<>(bookedMinutes.size());
+        for (Map.Entry<String, long[]> entry : bookedMinutes.entrySet()) {
+            entries.add(entry(entry.getKey(), entry.getValue(), availableMinutes, first));
+        }
+        return new UtilizationReport(groupBy.name().toLowerCase(Locale.ROOT), entries);
+    }
+
+    private static String keyOf(BookedInterval interval, GroupBy groupBy) {
+        if (groupBy == GroupBy.ROOM) {
+            return interval.getRoomName();
+        }
+        return interval.getDoctorId() != null ? String.valueOf(interval.getDoctorId()) : null;
+    }
+
+    private static String keyOf(AppointmentSeries series, GroupBy groupBy) {
+        if (groupBy == GroupBy.ROOM) {
+            return series.getRoom() != null ? series.getRoom().getRoomName() : null;
+        }
+        return series.getDoctor() != null ? String.valueOf(series.getDoctor().getId()) : null;
+    }
+
+    /**
+     * Adds the minutes of [startsAt, finishesAt) to the days they fall on, day 0 being the first date.
+     */
+    private static void addMinutes(long[] minutes, LocalDate first, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        LocalDateTime dayStart = startsAt.toLocalDate().atStartOfDay();
+        int day = (int) ChronoUnit.DAYS.between(first, dayStart);
+        while (dayStart.isBefore(finishesAt)) {
+            LocalDateTime dayEnd = dayStart.plusDays(1);
+            minutes[day] += Duration.between(max(startsAt, dayStart), min(finishesAt, dayEnd)).toMinutes();
+            dayStart = dayEnd;
+            day++;
+        }
+    }
+
+    /**
+     * Builds the days of a key and rolls them up into weeks starting on Monday.
+     */
+    private static UtilizationReport.Entry entry(String key, long[] bookedMinutes, long[] availableMinutes, LocalDate first) {
+        List<UtilizationReport.Period> days = new ArrayList<>(bookedMinutes.length);
+        List<UtilizationReport.Period> weeks = new ArrayList<>();
+        long total = 0;
+        long weekBooked = 0;
+        long weekAvailable = 0;
+        LocalDate weekStart = first;
+
+        for (int i = 0; i < bookedMinutes.length; i++) {
+            LocalDate date = first.plusDays(i);
+            if (date.getDayOfWeek() == DayOfWeek.MONDAY && i > 0) {
+                weeks.add(new UtilizationReport.Period(weekStart, weekBooked, weekAvailable));
+                weekStart = date;
+                weekBooked = 0;
+                weekAvailable = 0;
+            }
+            days.add(new UtilizationReport.Period(date, bookedMinutes[i], availableMinutes[i]));
+            total += bookedMinutes[i];
+            weekBooked += bookedMinutes[i];
+            weekAvailable += availableMinutes[i];
+        }
+        weeks.add(new UtilizationReport.Period(weekStart, weekBooked, weekAvailable));
+
+        return new UtilizationReport.Entry(key, total, days, weeks);
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
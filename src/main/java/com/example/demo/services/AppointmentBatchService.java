@@ -0,0 +1,270 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.BatchReport;
+import com.example.demo.entities.*;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.AppointmentSeriesRepository;
+import com.example.demo.repositories.BookedInterval;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates many appointments at once, checking conflicts with a single sort-and-sweep
+ * instead of one overlap query per appointment.
+ */
+@Service
+public class AppointmentBatchService {
+
+    static final String INVALID = "invalid appointment";
+
+    /**
+     * Maximum number of keys sent in the IN clause of a single query.
+     */
+    private static final int KEYS_PER_QUERY = 500;
+
+    @Autowired
+    AppointmentRepository appointmentRepository;
+
+    @Autowired
+    AppointmentSeriesRepository appointmentSeriesRepository;
+
+    @Autowired
+    BookingLocks bookingLocks;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Sweep state of one room, doctor or patient: its stored appointments sorted by start date,
+     * a cursor on the first one that may still overlap, its series, and the finish date of the
+     * last appointment of the batch accepted for it.
+     */
+    private static class Lane {
+        private final Conflict dimension;
+        private final List<BookedInterval> booked = new ArrayList<>();
+        private final List<AppointmentSeries> series = new ArrayList<>();
+        private int next;
+        private LocalDateTime acceptedUntil;
+
+        Lane(Conflict dimension) {
+            this.dimension = dimension;
+        }
+
+        /**
+         * The cursor skips the stored appointments finishing before the appointment starts. The batch
+         * is swept by start date, so they can't overlap any later appointment either. The first one
+         * left is the only one to check: the ones after it start later, and overlap only if it does.
+         * This holds even if stored appointments overlap each other, as legacy rows may.
+         */
+        boolean overlapsBooked(Appointment appointment) {
+            while (next < booked.size() && !booked.get(next).getFinishesAt().isAfter(appointment.getStartsAt())) {
+                next++;
+            }
+            return (next < booked.size() && booked.get(next).getStartsAt().isBefore(appointment.getFinishesAt()))
+                    || AppointmentSeriesService.anyOverlaps(series, appointment.getStartsAt(), appointment.getFinishesAt());
+        }
+
+        boolean overlapsAccepted(Appointment appointment) {
+            return acceptedUntil != null && appointment.getStartsAt().isBefore(acceptedUntil);
+        }
+    }
+
+    /**
+     * Sorts the appointments by start date and sweeps them once, together with the stored
+     * appointments of their rooms, doctors and patients in the window they cover, which are
+     * read with one indexed query per dimension. An appointment is rejected if it overlaps with
+     * a stored appointment or with a previously accepted one sharing its room, doctor or patient.
+     * The accepted appointments are inserted in one transaction, with JDBC batching.
+     *
+     * The locks of every room, doctor and patient involved are held until the transaction commits.
+     *
+     * @param appointments Appointments to create.
+     * @return the report with the outcome of each appointment, in the order received.
+     */
+    public BatchReport createAll(List<Appointment> appointments) {
+        BatchReport.Item[] items = new BatchReport.Item[appointments.size()];
+        List<Integer> indexes = new ArrayList<>(appointments.size());
+        Set<String> keys = new HashSet<>();
+
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            if (appointment == null || !appointment.hasValidInterval() || appointment.getRoom() == null || appointment.getRoom().getRoomName() == null) {
+                items[i] = BatchReport.Item.rejected(i, INVALID);
+            } else {
+                indexes.add(i);
+                keys.addAll(BookingLocks.keysOf(appointment));
+            }
+        }
+
+        List<Lock> locks = bookingLocks.getAll(keys);
+        BookingLocks.lockAll(locks);
+        try {
+            transactionTemplate.execute(status -> {
+                List<Integer> accepted = sweep(indexes, appointments, items);
+
+                Map<String, Room> rooms = new HashMap<>();
+                List<Appointment> toSave = new ArrayList<>(accepted.size());
+                for (int index : accepted) {
+                    Appointment appointment = appointments.get(index);
+                    resolveReferences(appointment, rooms);
+                    toSave.add(appointment);
+                }
+                appointmentRepository.saveAll(toSave);
+
+                for (int index : accepted) {
+                    items[index] = BatchReport.Item.accepted(index, appointments.get(index).getId());
+                }
+                return null;
+            });
+        } finally {
+            BookingLocks.unlockAll(locks);
+        }
+
+        return new BatchReport(items);
+    }
+
+    private List<Integer> sweep(List<Integer> indexes, List<Appointment> appointments, BatchReport.Item[] items) {
+        List<Integer> accepted = new ArrayList<>();
+        if (indexes.isEmpty()) {
+            return accepted;
+        }
+
+        // List.sort is stable: appointments starting at the same time keep the order received.
+        indexes.sort(Comparator.comparing(index -> appointments.get(index).getStartsAt()));
+
+        LocalDateTime from = appointments.get(indexes.get(0)).getStartsAt();
+        LocalDateTime to = from;
+        Map<String, Lane> lanes = new HashMap<>();
+        Set<String> roomNames = new HashSet<>();
+        Set<Long> doctorIds = new HashSet<>();
+        Set<Long> patientIds = new HashSet<>();
+
+        for (int index : indexes) {
+            Appointment appointment = appointments.get(index);
+            if (appointment.getFinishesAt().isAfter(to)) {
+                to = appointment.getFinishesAt();
+            }
+
+            roomNames.add(appointment.getRoom().getRoomName());
+            lanes.putIfAbsent(BookingLocks.roomKey(appointment.getRoom().getRoomName()), new Lane(Conflict.ROOM));
+            if (appointment.getDoctor() != null && appointment.getDoctor().getId() != 0) {
+                doctorIds.add(appointment.getDoctor().getId());
+                lanes.putIfAbsent(BookingLocks.doctorKey(appointment.getDoctor().getId()), new Lane(Conflict.DOCTOR));
+            }
+            if (appointment.getPatient() != null && appointment.getPatient().getId() != 0) {
+                patientIds.add(appointment.getPatient().getId());
+                lanes.putIfAbsent(BookingLocks.patientKey(appointment.getPatient().getId()), new Lane(Conflict.PATIENT));
+            }
+        }
+
+        for (List<String> chunk : chunks(roomNames)) {
+            for (BookedInterval interval : appointmentRepository.findRoomIntervals(chunk, from, to)) {
+                lanes.get(BookingLocks.roomKey(interval.getRoomName())).booked.add(interval);
+            }
+            for (AppointmentSeries series : appointmentSeriesRepository.findRoomSeries(chunk, from, to)) {
+                lanes.get(BookingLocks.roomKey(series.getRoom().getRoomName())).series.add(series);
+            }
+        }
+        for (List<Long> chunk : chunks(doctorIds)) {
+            for (BookedInterval interval : appointmentRepository.findDoctorIntervals(chunk, from, to)) {
+                lanes.get(BookingLocks.doctorKey(interval.getDoctorId())).booked.add(interval);
+            }
+            for (AppointmentSeries series : appointmentSeriesRepository.findDoctorSeries(chunk, from, to)) {
+                lanes.get(BookingLocks.doctorKey(series.getDoctor().getId())).series.add(series);
+            }
+        }
+        for (List<Long> chunk : chunks(patientIds)) {
+            for (BookedInterval interval : appointmentRepository.findPatientIntervals(chunk, from, to)) {
+                lanes.get(BookingLocks.patientKey(interval.getPatientId())).booked.add(interval);
+            }
+            for (AppointmentSeries series : appointmentSeriesRepository.findPatientSeries(chunk, from, to)) {
+                lanes.get(BookingLocks.patientKey(series.getPatient().getId())).series.add(series);
+            }
+        }
+
+        for (int index : indexes) {
+            Appointment appointment = appointments.get(index);
+            List<Lane> appointmentLanes = new ArrayList<>(3);
+            String reason = null;
+
+            for (String key : BookingLocks.keysOf(appointment)) {
+                Lane lane = lanes.get(key);
+                appointmentLanes.add(lane);
+                if (lane.overlapsBooked(appointment)) {
+                    reason = lane.dimension.name().toLowerCase() + " is already booked";
+                    break;
+                }
+                if (lane.overlapsAccepted(appointment)) {
+                    reason = lane.dimension.name().toLowerCase() + " is booked by a previous appointment of the batch";
+                    break;
+                }
+            }
+
+            if (reason != null) {
+                items[index] = BatchReport.Item.rejected(index, reason);
+            } else {
+                accepted.add(index);
+                for (Lane lane : appointmentLanes) {
+                    lane.acceptedUntil = appointment.getFinishesAt();
+                }
+            }
+        }
+
+        return accepted;
+    }
+
+    private static <T> List<List<T>> chunks(Collection<T> keys) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(Math.min(keys.size(), KEYS_PER_QUERY));
+        for (T key : keys) {
+            chunk.add(key);
+            if (chunk.size() == KEYS_PER_QUERY) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(KEYS_PER_QUERY);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Points the appointment to the stored room, patient and doctor when they exist,
+     * so the cascade only inserts the ones that are really new. Every appointment of
+     * a new room shares the same instance, whatever the case of its name, so the room is inserted once.
+     */
+    private void resolveReferences(Appointment appointment, Map<String, Room> rooms) {
+        Room room = rooms.computeIfAbsent(BookingLocks.roomKey(appointment.getRoom().getRoomName()), key -> {
+            Room stored = entityManager.find(Room.class, appointment.getRoom().getRoomName());
+            return stored != null ? stored : appointment.getRoom();
+        });
+        appointment.setRoom(room);
+
+        if (appointment.getPatient() != null && appointment.getPatient().getId() != 0) {
+            appointment.setPatient(entityManager.getReference(Patient.class, appointment.getPatient().getId()));
+        }
+        if (appointment.getDoctor() != null && appointment.getDoctor().getId() != 0) {
+            appointment.setDoctor(entityManager.getReference(Doctor.class, appointment.getDoctor().getId()));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.AppointmentSeriesRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Books single appointments, making sure that neither the room, the doctor nor the patient
+ * is booked twice at the same time.
+ */
+@Service
+public class AppointmentBookingService {
+
+    @Autowired
+    AppointmentRepository appointmentRepository;
+
+    @Autowired
+    AppointmentSeriesRepository appointmentSeriesRepository;
+
+    @Autowired
+    BookingLocks bookingLocks;
+
+    @Autowired(required = false)
+    SlotOccupancy slotOccupancy;
+
+    /**
+     * Saves the appointment if it has no conflict. The check and the insert run under the locks
+     * of its room, doctor and patient, so concurrent bookings sharing any of them can't both pass
+     * the check, while unrelated bookings are not blocked.
+     *
+     * @param appointment Valid appointment, with its room set.
+     * @return NONE if the appointment was saved, otherwise the dimension in conflict.
+     */
+    public Conflict book(Appointment appointment) {
+        List<Lock> locks = bookingLocks.getAll(BookingLocks.keysOf(appointment));
+        BookingLocks.lockAll(locks);
+        try {
+            Conflict conflict = findConflict(appointment);
+            if (conflict == Conflict.NONE) {
+                appointmentRepository.save(appointment);
+            }
+            return conflict;
+        } finally {
+            BookingLocks.unlockAll(locks);
+        }
+    }
+
+    /**
+     * Checks the appointment against the stored appointments with one indexed query per dimension,
+     * and against the series of each dimension overlapping with it, arithmetically.
+     * The room is checked on the slot occupancy bitsets first, when they are enabled.
+     *
+     * @param appointment Valid appointment, with its room set.
+     * @return the first dimension in conflict, or NONE.
+     */
+    public Conflict findConflict(Appointment appointment) {
+        LocalDateTime startsAt = appointment.getStartsAt();
+        LocalDateTime finishesAt = appointment.getFinishesAt();
+
+        if (isRoomBooked(appointment.getRoom().getRoomName(), startsAt, finishesAt)) {
+            return Conflict.ROOM;
+        }
+        if (appointment.getDoctor() != null && appointment.getDoctor().getId() != 0) {
+            long doctorId = appointment.getDoctor().getId();
+            if (appointmentRepository.existsOverlappingForDoctor(doctorId, startsAt, finishesAt)
+                    || AppointmentSeriesService.anyOverlaps(appointmentSeriesRepository.findDoctorSeries(Collections.singleton(doctorId), startsAt, finishesAt), startsAt, finishesAt)) {
+                return Conflict.DOCTOR;
+            }
+        }
+        if (appointment.getPatient() != null && appointment.getPatient().getId() != 0) {
+            long patientId = appointment.getPatient().getId();
+            if (appointmentRepository.existsOverlappingForPatient(patientId, startsAt, finishesAt)
+                    || AppointmentSeriesService.anyOverlaps(appointmentSeriesRepository.findPatientSeries(Collections.singleton(patientId), startsAt, finishesAt), startsAt, finishesAt)) {
+                return Conflict.PATIENT;
+            }
+        }
+        return Conflict.NONE;
+    }
+
+    private boolean isRoomBooked(String roomName, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        if (slotOccupancy != null) {
+            // The bitsets hold the occurrences of the series too.
+            Boolean free = slotOccupancy.isFree(roomName, startsAt, finishesAt);
+            if (free != null) {
+                return !free;
+            }
+        }
+        return appointmentRepository.existsOverlappingInRoom(roomName, startsAt, finishesAt)
+                || AppointmentSeriesService.anyOverlaps(appointmentSeriesRepository.findRoomSeries(Collections.singleton(roomName), startsAt, finishesAt), startsAt, finishesAt);
+    }
+}
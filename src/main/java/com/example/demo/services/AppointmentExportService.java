@@ -0,0 +1,73 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.repositories.AppointmentRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes every appointment as newline-delimited JSON, one row at a time.
+ */
+@Service
+public class AppointmentExportService {
+
+    /**
+     * Rows written between two clears of the persistence context and two flushes of the output.
+     */
+    static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    AppointmentRepository appointmentRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Streams the appointments from a database cursor and writes each one as a JSON line, with the
+     * same serialization as the REST responses. The persistence context is cleared every CHUNK_SIZE
+     * rows, so memory stays flat however many rows are exported.
+     *
+     * @param out Stream the lines are written to, left open.
+     * @return the number of appointments written.
+     */
+    @Transactional(readOnly = true)
+    public long export(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Appointment.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+
+        try (Stream<Appointment> appointments = appointmentRepository.streamAllOrderById();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Values are separated by the newlines written below, not by the default space.
+            generator.setRootValueSeparator(null);
+            Iterator<Appointment> iterator = appointments.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++count % CHUNK_SIZE == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.Occurrence;
+import com.example.demo.entities.AppointmentSeries;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.AppointmentSeriesRepository;
+import com.example.demo.repositories.BookedInterval;
+import com.example.demo.repositories.RoomRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Books appointment series, checking each one arithmetically against the appointments and
+ * the other series of its room, doctor and patient, without expanding it.
+ */
+@Service
+public class AppointmentSeriesService {
+
+    @Autowired
+    AppointmentRepository appointmentRepository;
+
+    @Autowired
+    AppointmentSeriesRepository appointmentSeriesRepository;
+
+    @Autowired
+    RoomRepository roomRepository;
+
+    @Autowired
+    BookingLocks bookingLocks;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    /**
+     * Saves the series if it has no conflict, under the same locks as single bookings. The check, the
+     * creation of the room if it doesn't exist yet and the insert run in one transaction, and the room
+     * is only created once the series is accepted.
+     *
+     * @param series Series with a valid rule and its doctor and patient stored. Only the name of its room is read.
+     * @return NONE if the series was saved, otherwise the dimension in conflict.
+     */
+    public Conflict create(AppointmentSeries series) {
+        List<Lock> locks = bookingLocks.getAll(BookingLocks.keysOf(series));
+        BookingLocks.lockAll(locks);
+        try {
+            return transactionTemplate.execute(status -> {
+                Conflict conflict = findConflict(series);
+                if (conflict == Conflict.NONE) {
+                    String roomName = series.getRoom().getRoomName();
+                    series.setRoom(roomRepository.findByRoomName(roomName).orElseGet(() -> roomRepository.save(new Room(roomName))));
+                    appointmentSeriesRepository.save(series);
+                }
+                return conflict;
+            });
+        } finally {
+            BookingLocks.unlockAll(locks);
+        }
+    }
+
+    /**
+     * Reads the appointments and series of each dimension within the span of the series,
+     * and checks each of them against the series arithmetically.
+     *
+     * @return the first dimension in conflict, or NONE.
+     */
+    public Conflict findConflict(AppointmentSeries series) {
+        LocalDateTime from = series.getStartsAt();
+        LocalDateTime to = series.getLastFinishesAt();
+
+        String roomName = series.getRoom().getRoomName();
+        if (overlaps(series, appointmentRepository.findRoomIntervals(Collections.singleton(roomName), from, to))
+                || overlapsAny(series, appointmentSeriesRepository.findRoomSeries(Collections.singleton(roomName), from, to))) {
+            return Conflict.ROOM;
+        }
+        if (series.getDoctor() != null && series.getDoctor().getId() != 0) {
+            long doctorId = series.getDoctor().getId();
+            if (overlaps(series, appointmentRepository.findDoctorIntervals(Collections.singleton(doctorId), from, to))
+                    || overlapsAny(series, appointmentSeriesRepository.findDoctorSeries(Collections.singleton(doctorId), from, to))) {
+                return Conflict.DOCTOR;
+            }
+        }
+        if (series.getPatient() != null && series.getPatient().getId() != 0) {
+            long patientId = series.getPatient().getId();
+            if (overlaps(series, appointmentRepository.findPatientIntervals(Collections.singleton(patientId), from, to))
+                    || overlapsAny(series, appointmentSeriesRepository.findPatientSeries(Collections.singleton(patientId), from, to))) {
+                return Conflict.PATIENT;
+            }
+        }
+        return Conflict.NONE;
+    }
+
+    private static boolean overlaps(AppointmentSeries series, List<BookedInterval> booked) {
+        for (BookedInterval interval : booked) {
+            if (series.overlapsInTime(interval.getStartsAt(), interval.getFinishesAt())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlapsAny(AppointmentSeries series, List<AppointmentSeries> others) {
+        for (AppointmentSeries other : others) {
+            if (other.getId() != series.getId() && series.overlapsInTime(other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if any occurrence of the series overlaps with [startsAt, finishesAt).
+     */
+    public static boolean anyOverlaps(List<AppointmentSeries> series, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        for (AppointmentSeries s : series) {
+            if (s.overlapsInTime(startsAt, finishesAt)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the occurrences of the series falling in [from, to) to the booked intervals, keeping them sorted by start date.
+     */
+    public static List<BookedInterval> withOccurrences(List<BookedInterval> booked, List<AppointmentSeries> series, LocalDateTime from, LocalDateTime to) {
+        if (series.isEmpty()) {
+            return booked;
+        }
+        List<BookedInterval> merged = new ArrayList<>(booked);
+        for (AppointmentSeries s : series) {
+            merged.addAll(Occurrence.between(s, from, to));
+        }
+        merged.sort(Comparator.comparing(BookedInterval::getStartsAt));
+        return merged;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.FreeSlot;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.AppointmentSeriesRepository;
+import com.example.demo.repositories.BookedInterval;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Finds the free gaps in the schedule of a room or a doctor, so clients can pick a slot
+ * instead of retrying bookings until one is accepted.
+ */
+@Service
+public class AvailabilityService {
+
+    @Autowired
+    AppointmentRepository appointmentRepository;
+
+    @Autowired
+    AppointmentSeriesRepository appointmentSeriesRepository;
+
+    @Autowired(required = false)
+    SlotOccupancy slotOccupancy;
+
+    public List<FreeSlot> findRoomSlots(String roomName, LocalDateTime from, LocalDateTime to, Duration duration, int limit) {
+        if (slotOccupancy != null) {
+            List<FreeSlot> slots = slotOccupancy.freeSlots(roomName, from, to, duration, limit);
+            if (slots != null) {
+                return slots;
+            }
+        }
+        List<BookedInterval> booked = AppointmentSeriesService.withOccurrences(
+                appointmentRepository.findRoomIntervals(Collections.singleton(roomName), from, to),
+                appointmentSeriesRepository.findRoomSeries(Collections.singleton(roomName), from, to), from, to);
+        return freeSlots(booked, from, to, duration, limit);
+    }
+
+    public List<FreeSlot> findDoctorSlots(long doctorId, LocalDateTime from, LocalDateTime to, Duration duration, int limit) {
+        List<BookedInterval> booked = AppointmentSeriesService.withOccurrences(
+                appointmentRepository.findDoctorIntervals(Collections.singleton(doctorId), from, to),
+                appointmentSeriesRepository.findDoctorSeries(Collections.singleton(doctorId), from, to), from, to);
+        return freeSlots(booked, from, to, duration, limit);
+    }
+
+    /**
+     * Walks the bookings once, in start order, keeping the end of the busy time seen so far.
+     * Every gap between that end and the next booking long enough for the duration is free.
+     *
+     * @param booked Bookings overlapping [from, to), sorted by start date.
+     * @param from Start of the search window.
+     * @param to End of the search window.
+     * @param duration Minimum length of a slot.
+     * @param limit Maximum number of slots returned.
+     * @return the first free slots of the window, clipped to it.
+     */
+    public static List<FreeSlot> freeSlots(List<BookedInterval> booked, LocalDateTime from, LocalDateTime to, Duration duration, int limit) {
+        List<FreeSlot> slots = new ArrayList<>(Math.min(limit, booked.size() + 1));
+        LocalDateTime busyUntil = from;
+
+        for (BookedInterval interval : booked) {
+            if (slots.size() == limit) {
+                return slots;
+            }
+            addIfFits(slots, busyUntil, interval.getStartsAt(), duration);
+            // Legacy rows may overlap, so the busy time only grows.
+            if (interval.getFinishesAt().isAfter(busyUntil)) {
+                busyUntil = interval.getFinishesAt();
+            }
+        }
+        if (slots.size() < limit) {
+            addIfFits(slots, busyUntil, to, duration);
+        }
+        return slots;
+    }
+
+    private static void addIfFits(List<FreeSlot> slots, LocalDateTime startsAt, LocalDateTime finishesAt, Duration duration) {
+        if (!startsAt.plus(duration).isAfter(finishesAt)) {
+            slots.add(new FreeSlot(startsAt, finishesAt));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.demo.entities.*;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Striped locks used to linearize the overlap check and the insert of a booking.
+ *
+ * Each key (a room, a doctor or a patient) is hashed to one of a fixed number of locks, so bookings
+ * for the same key are serialized while bookings for different keys run in parallel, with
+ * a bounded memory footprint no matter how many keys exist.
+ *
+ * The locks only coordinate the threads of this application instance.
+ */
+@Component
+public class BookingLocks {
+
+    private final Lock[] stripes;
+
+    public BookingLocks(@Value("${accwe.booking.lock-stripes:256}") int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("accwe.booking.lock-stripes must be positive: " + stripes);
+        }
+
+        // Round up to a power of two, so the stripe is picked with a mask.
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Lock[Math.max(size, 1)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @param key Key of the resource being booked, see roomKey, doctorKey and patientKey.
+     * @return the lock guarding the key.
+     */
+    public Lock get(Object key) {
+        return stripes[stripeOf(key)];
+    }
+
+    /**
+     * Locks guarding several keys, without duplicates and sorted by stripe.
+     * Acquiring them in the returned order can't deadlock with another thread doing the same.
+     *
+     * @param keys Keys of the resources being booked.
+     * @return the locks to acquire, in order.
+     */
+    public List<Lock> getAll(Collection<?> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Object key : keys) {
+            indexes.add(stripeOf(key));
+        }
+
+        List<Lock> locks = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    public static void lockAll(List<Lock> locks) {
+        for (Lock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    public static void unlockAll(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    /**
+     * Room names are compared like MySQL does, ignoring case and trailing spaces, so names
+     * the database takes for the same room share their key.
+     */
+    public static String roomKey(String roomName) {
+        return "room:" + roomName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String doctorKey(long doctorId) {
+        return "doctor:" + doctorId;
+    }
+
+    public static String patientKey(long patientId) {
+        return "patient:" + patientId;
+    }
+
+    /**
+     * Keys of the room, doctor and patient of an appointment.
+     * Doctors and patients not stored yet (id 0) have no bookings, so they need no lock.
+     *
+     * @param appointment Appointment being booked.
+     * @return the keys to lock before checking and saving the appointment.
+     */
+    public static List<String> keysOf(Appointment appointment) {
+        return keysOf(appointment.getRoom(), appointment.getDoctor(), appointment.getPatient());
+    }
+
+    /**
+     * Same as keysOf(Appointment), for a series.
+     */
+    public static List<String> keysOf(AppointmentSeries series) {
+        return keysOf(series.getRoom(), series.getDoctor(), series.getPatient());
+    }
+
+    private static List<String> keysOf(Room room, Doctor doctor, Patient patient) {
+        List<String> keys = new ArrayList<>(3);
+        keys.add(roomKey(room.getRoomName()));
+        if (doctor != null && doctor.getId() != 0) {
+            keys.add(doctorKey(doctor.getId()));
+        }
+        if (patient != null && patient.getId() != 0) {
+            keys.add(patientKey(patient.getId()));
+        }
+        return keys;
+    }
+
+    public int stripeOf(Object key) {
+        int hash = key.hashCode();
+        // Spread the high bits, as HashMap does, so similar keys land on different stripes.
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+}
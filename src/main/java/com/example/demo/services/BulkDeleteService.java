@@ -0,0 +1,150 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.*;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.BookedInterval;
+import com.example.demo.repositories.DoctorRepository;
+import com.example.demo.repositories.PatientRepository;
+import com.example.demo.repositories.RoomRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Deletes single rows by key and empties whole tables with one DELETE statement each, instead of
+ * loading every entity before deleting it. Nothing is cascaded: rows of other tables referencing
+ * the deleted ones make the statement fail, so tables are emptied from the appointments up.
+ *
+ * Bulk statements don't raise the entity events, so the table version and the slot occupancy
+ * are updated here once the transaction commits. Hibernate evicts the cache region of the table itself.
+ */
+@Service
+public class BulkDeleteService {
+
+    @Autowired
+    AppointmentRepository appointmentRepository;
+
+    @Autowired
+    DoctorRepository doctorRepository;
+
+    @Autowired
+    PatientRepository patientRepository;
+
+    @Autowired
+    RoomRepository roomRepository;
+
+    @Autowired(required = false)
+    TableVersions tableVersions;
+
+    @Autowired(required = false)
+    SlotOccupancy slotOccupancy;
+
+    /**
+     * Their patients, doctors and rooms are kept.
+     *
+     * @return the number of rows deleted.
+     */
+    @Transactional
+    public int deleteAllAppointments() {
+        return changed(Appointment.class, appointmentRepository.deleteAllRows(), slotOccupancy != null ? slotOccupancy::clear : null);
+    }
+
+    /**
+     * @return the number of rows deleted.
+     * @throws org.springframework.dao.DataIntegrityViolationException if appointments or series still reference some of them.
+     */
+    @Transactional
+    public int deleteAllDoctors() {
+        return changed(Doctor.class, doctorRepository.deleteAllRows(), null);
+    }
+
+    /**
+     * @return the number of rows deleted.
+     * @throws org.springframework.dao.DataIntegrityViolationException if appointments or series still reference some of them.
+     */
+    @Transactional
+    public int deleteAllPatients() {
+        return changed(Patient.class, patientRepository.deleteAllRows(), null);
+    }
+
+    /**
+     * @return the number of rows deleted.
+     * @throws org.springframework.dao.DataIntegrityViolationException if appointments or series still reference some of them.
+     */
+    @Transactional
+    public int deleteAllRooms() {
+        return changed(Room.class, roomRepository.deleteAllRows(), null);
+    }
+
+    /**
+     * With the slot occupancy enabled, the room and dates of the appointment are read first with a
+     * projection, so only its slots are released.
+     *
+     * @return the number of rows deleted, 0 if the appointment doesn't exist.
+     */
+    @Transactional
+    public int deleteAppointment(long id) {
+        if (slotOccupancy == null) {
+            return changed(Appointment.class, appointmentRepository.deleteRowById(id), null);
+        }
+        BookedInterval interval = appointmentRepository.findIntervalById(id).orElse(null);
+        if (interval == null) {
+            return 0;
+        }
+        Runnable release = interval.getRoomName() != null
+                ? () -> slotOccupancy.released(interval.getRoomName(), interval.getStartsAt(), interval.getFinishesAt())
+                : null;
+        return changed(Appointment.class, appointmentRepository.deleteRowById(id), release);
+    }
+
+    /**
+     * @return the number of rows deleted, 0 if the doctor doesn't exist.
+     * @throws org.springframework.dao.DataIntegrityViolationException if appointments or series still reference it.
+     */
+    @Transactional
+    public int deleteDoctor(long id) {
+        return changed(Doctor.class, doctorRepository.deleteRowById(id), null);
+    }
+
+    /**
+     * @return the number of rows deleted, 0 if the patient doesn't exist.
+     * @throws org.springframework.dao.DataIntegrityViolationException if appointments or series still reference it.
+     */
+    @Transactional
+    public int deletePatient(long id) {
+        return changed(Patient.class, patientRepository.deleteRowById(id), null);
+    }
+
+    /**
+     * @return the number of rows deleted, 0 if the room doesn't exist.
+     * @throws org.springframework.dao.DataIntegrityViolationException if appointments or series still reference it.
+     */
+    @Transactional
+    public int deleteRoom(String roomName) {
+        return changed(Room.class, roomRepository.deleteRowByRoomName(roomName), null);
+    }
+
+    /**
+     * Bumps the table version and runs the update of the slot occupancy, if any, after commit, if rows were deleted.
+     */
+    private int changed(Class<?> table, int deleted, Runnable occupancyUpdate) {
+        if (deleted == 0) {
+            return 0;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (tableVersions != null) {
+                    tableVersions.bump(table);
+                }
+                if (occupancyUpdate != null) {
+                    occupancyUpdate.run();
+                }
+            }
+        });
+        return deleted;
+    }
+}
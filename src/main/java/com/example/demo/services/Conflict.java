@@ -0,0 +1,8 @@
+package com.example.demo.services;
+
+/**
+ * Dimension in which an appointment collides with another one, or NONE when it can be booked.
+ */
+public enum Conflict {
+    NONE, ROOM, DOCTOR, PATIENT
+}
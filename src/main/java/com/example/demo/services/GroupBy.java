@@ -0,0 +1,6 @@
+package com.example.demo.services;
+
+/**
+ * Key the appointments are aggregated by in the analytics.
+ */
+public enum GroupBy { ROOM, DOCTOR }
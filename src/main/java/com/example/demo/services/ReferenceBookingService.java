@@ -0,0 +1,94 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.*;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.BookingReferences;
+
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Books appointments given by the keys of their room, doctor and patient. The keys are checked
+ * with one query and the appointment points to references of them, so saving it inserts the
+ * appointment alone, without reading, merging or inserting its room, doctor and patient.
+ */
+@Service
+public class ReferenceBookingService {
+
+    @Autowired
+    AppointmentRepository appointmentRepository;
+
+    @Autowired
+    AppointmentBookingService appointmentBookingService;
+
+    @Autowired
+    BookingLocks bookingLocks;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Same checks as AppointmentBookingService.book. The locks of the room, the doctor and the patient
+     * are held until the transaction commits.
+     *
+     * @param appointment Valid appointment, whose room, doctor and patient only carry their keys.
+     * @return NONE if the appointment was saved, otherwise the dimension in conflict.
+     * @throws DataIntegrityViolationException if the room, the doctor or the patient doesn't exist.
+     */
+    public Conflict book(Appointment appointment) {
+        List<Lock> locks = bookingLocks.getAll(BookingLocks.keysOf(appointment));
+        BookingLocks.lockAll(locks);
+        try {
+            return transactionTemplate.execute(status -> {
+                resolveReferences(appointment);
+                Conflict conflict = appointmentBookingService.findConflict(appointment);
+                if (conflict == Conflict.NONE) {
+                    appointmentRepository.save(appointment);
+                }
+                return conflict;
+            });
+        } finally {
+            BookingLocks.unlockAll(locks);
+        }
+    }
+
+    /**
+     * Points the appointment to references of its room, doctor and patient once they are found.
+     * The references are proxies that are never loaded, and persisting the appointment doesn't cascade to them.
+     */
+    private void resolveReferences(Appointment appointment) {
+        String roomName = appointment.getRoom().getRoomName();
+        Long doctorId = appointment.getDoctor() != null ? appointment.getDoctor().getId() : null;
+        Long patientId = appointment.getPatient() != null ? appointment.getPatient().getId() : null;
+
+        BookingReferences references = appointmentRepository.findBookingReferences(roomName, doctorId, patientId).orElse(null);
+        if (references == null) {
+            throw new DataIntegrityViolationException("Room " + roomName + " doesn't exist");
+        }
+        if (doctorId != null && references.getDoctors() == 0) {
+            throw new DataIntegrityViolationException("Doctor " + doctorId + " doesn't exist");
+        }
+        if (patientId != null && references.getPatients() == 0) {
+            throw new DataIntegrityViolationException("Patient " + patientId + " doesn't exist");
+        }
+
+        appointment.setRoom(entityManager.getReference(Room.class, roomName));
+        if (doctorId != null) {
+            appointment.setDoctor(entityManager.getReference(Doctor.class, doctorId));
+        }
+        if (patientId != null) {
+            appointment.setPatient(entityManager.getReference(Patient.class, patientId));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ImportReport;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.RoomRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Inserts many patients, doctors or rooms in one transaction, sent to the database in JDBC batches.
+ */
+@Service
+public class ReferenceDataImportService {
+
+    /**
+     * Maximum number of room names sent in the IN clause of a single query.
+     */
+    private static final int KEYS_PER_QUERY = 500;
+
+    @Autowired
+    RoomRepository roomRepository;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Rows persisted between two flushes, the JDBC batch size, so each flush sends one batch per table.
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    int batchSize;
+
+    /**
+     * Persists the new entities, flushing and clearing the persistence context every batch, so
+     * memory stays flat however many rows are imported. The rows are not put in the second-level
+     * cache: an import would only evict the entries being read.
+     *
+     * @param entities New entities, without ids.
+     * @return the report with every entity created.
+     */
+    @Transactional
+    public ImportReport persistAll(List<?> entities) {
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        int count = 0;
+        for (Object entity : entities) {
+            entityManager.persist(entity);
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return new ImportReport(count, 0);
+    }
+
+    /**
+     * Creates the rooms that don't exist yet, like creating them one by one would, reading the
+     * existing names with one query per 500 names instead of one per room. Names are compared by
+     * BookingLocks.roomKey, ignoring case and trailing spaces like the unique key of MySQL, and the
+     * first spelling of each one is kept.
+     *
+     * @param rooms Rooms to create, which may repeat names.
+     * @return the report with the rooms created and the ones skipped, repeated or already stored.
+     */
+    @Transactional
+    public ImportReport createRooms(List<Room> rooms) {
+        Map<String, String> names = new LinkedHashMap<>();
+        for (Room room : rooms) {
+            names.putIfAbsent(BookingLocks.roomKey(room.getRoomName()), room.getRoomName());
+        }
+
+        Set<String> existing = new HashSet<>();
+        List<String> chunk = new ArrayList<>(Math.min(names.size(), KEYS_PER_QUERY));
+        for (String name : names.values()) {
+            chunk.add(name);
+            if (chunk.size() == KEYS_PER_QUERY) {
+                addKeys(existing, roomRepository.findExistingNames(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            addKeys(existing, roomRepository.findExistingNames(chunk));
+        }
+
+        List<Room> created = new ArrayList<>(names.size());
+        for (Map.Entry<String, String> name : names.entrySet()) {
+            if (!existing.contains(name.getKey())) {
+                created.add(new Room(name.getValue()));
+            }
+        }
+        persistAll(created);
+        return new ImportReport(created.size(), rooms.size() - created.size());
+    }
+
+    private static void addKeys(Set<String> keys, List<String> roomNames) {
+        for (String roomName : roomNames) {
+            keys.add(BookingLocks.roomKey(roomName));
+        }
+    }
+}
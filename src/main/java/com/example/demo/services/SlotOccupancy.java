@@ -0,0 +1,479 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.FreeSlot;
+import com.example.demo.dto.OccupancyFootprint;
+import com.example.demo.repositories.BookedInterval;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Occupancy of the rooms as one bitset per room per day, with one bit per slot of a fixed grid.
+ * Days are loaded lazily from the database and kept in sync with the committed inserts and deletes.
+ * Each room keeps its most recently used days only, up to maxDaysPerRoom. Rooms are keyed like
+ * BookingLocks.roomKey, so names MySQL takes for the same room share their bitsets.
+ *
+ * Bookings off the grid are rounded outwards, so a clear bit always means the slot is free. A day
+ * stays exact while its bookings are on the grid and don't overlap: set bits then mean busy too.
+ * Every answer that can't be given from the bits is left to the database.
+ */
+public class SlotOccupancy {
+
+    /**
+     * Loads the stored bookings of a room overlapping a window, sorted by start date.
+     */
+    public interface Loader {
+        List<BookedInterval> load(String roomName, LocalDateTime from, LocalDateTime to);
+    }
+
+    /**
+     * Longest window, in days, answered from the bitsets.
+     */
+    static final int MAX_DAYS = 31;
+
+    /**
+     * Days kept per room when no limit is given.
+     */
+    static final int DEFAULT_MAX_DAYS_PER_ROOM = 3 * MAX_DAYS;
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    /**
+     * Estimated JVM overhead of a day besides its words: array header, Day object,
+     * LocalDate key and HashMap node, with compressed oops.
+     */
+    private static final int DAY_OVERHEAD_BYTES = 16 + 24 + 24 + 32;
+
+    private static final class Day {
+        private final long[] words;
+        private boolean exact = true;
+
+        private Day(int words) {
+            this.words = new long[words];
+        }
+    }
+
+    /**
+     * Loaded days of a room, in access order, dropping the least recently used beyond the limit.
+     * The version changes on every update, so a load that raced with one is used for its own answer but not cached.
+     */
+    private static final class RoomDays {
+        private final Map<LocalDate, Day> days;
+        private long version;
+
+        private RoomDays(int maxDays) {
+            this.days = new LinkedHashMap<LocalDate, Day>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<LocalDate, Day> eldest) {
+                    return size() > maxDays;
+                }
+            };
+        }
+    }
+
+    private final int slotMinutes;
+    private final long slotNanos;
+    private final int slotsPerDay;
+    private final int wordsPerDay;
+    private final int maxDaysPerRoom;
+    private final Loader loader;
+    private final Map<String, RoomDays> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * @param slotMinutes Length of a slot, a divisor of a day.
+     * @param loader Source of the bookings of a room.
+     */
+    public SlotOccupancy(int slotMinutes, Loader loader) {
+        this(slotMinutes, DEFAULT_MAX_DAYS_PER_ROOM, loader);
+    }
+
+    /**
+     * @param slotMinutes Length of a slot, a divisor of a day.
+     * @param maxDaysPerRoom Days kept per room, at least the longest window answered.
+     * @param loader Source of the bookings of a room.
+     */
+    public SlotOccupancy(int slotMinutes, int maxDaysPerRoom, Loader loader) {
+        if (slotMinutes <= 0 || 24 * 60 % slotMinutes != 0) {
+            throw new IllegalArgumentException("slot length must divide a day: " + slotMinutes);
+        }
+        if (maxDaysPerRoom < MAX_DAYS) {
+            throw new IllegalArgumentException("at least " + MAX_DAYS + " days must be kept per room: " + maxDaysPerRoom);
+        }
+        this.maxDaysPerRoom = maxDaysPerRoom;
+        this.slotMinutes = slotMinutes;
+        this.slotNanos = slotMinutes * NANOS_PER_MINUTE;
+        this.slotsPerDay = 24 * 60 / slotMinutes;
+        this.wordsPerDay = (slotsPerDay + 63) >>> 6;
+        this.loader = loader;
+    }
+
+    public int getSlotMinutes() {
+        return this.slotMinutes;
+    }
+
+    /**
+     * @return TRUE if the room is free in [startsAt, finishesAt), FALSE if it's booked,
+     * null if the bits can't tell and the database must be asked.
+     */
+    public Boolean isFree(String roomName, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        LocalDate first = startsAt.toLocalDate();
+        LocalDate last = lastDate(finishesAt);
+        if (ChronoUnit.DAYS.between(first, last) >= MAX_DAYS) {
+            return null;
+        }
+
+        RoomDays room = rooms.computeIfAbsent(BookingLocks.roomKey(roomName), key -> new RoomDays(maxDaysPerRoom));
+        Map<LocalDate, Day> days = load(roomName, room, first, last);
+        boolean unknown = false;
+        synchronized (room) {
+            for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                Day day = days.get(date);
+                if (any(day.words, fromSlot(date, startsAt), toSlot(date, finishesAt))) {
+                    if (day.exact && onGrid(date, startsAt, finishesAt)) {
+                        return Boolean.FALSE;
+                    }
+                    unknown = true;
+                }
+            }
+        }
+        return unknown ? null : Boolean.TRUE;
+    }
+
+    /**
+     * Same contract as {@link AvailabilityService#freeSlots}, answered from the bitsets.
+     *
+     * @return the free slots, or null if the window is off the grid, too long or covers an inexact day.
+     */
+    public List<FreeSlot> freeSlots(String roomName, LocalDateTime from, LocalDateTime to, Duration duration, int limit) {
+        LocalDate first = from.toLocalDate();
+        LocalDate last = lastDate(to);
+        if (ChronoUnit.DAYS.between(first, last) >= MAX_DAYS || !onGrid(from) || !onGrid(to)) {
+            return null;
+        }
+
+        RoomDays room = rooms.computeIfAbsent(BookingLocks.roomKey(roomName), key -> new RoomDays(maxDaysPerRoom));
+        Map<LocalDate, Day> loaded = load(roomName, room, first, last);
+        int dayCount = (int) ChronoUnit.DAYS.between(first, last) + 1;
+        long[][] words = new long[dayCount][];
+
+        synchronized (room) {
+            for (int i = 0; i < dayCount; i++) {
+                Day day = loaded.get(first.plusDays(i));
+                if (!day.exact) {
+                    return null;
+                }
+                words[i] = day.words.clone();
+            }
+        }
+
+        // Slots are numbered from the start of the first day, across days.
+        LocalDateTime origin = first.atStartOfDay();
+        int end = (int) (Duration.between(origin, to).toMinutes() / slotMinutes);
+        List<FreeSlot> slots = new ArrayList<>();
+        int slot = (int) (Duration.between(origin, from).toMinutes() / slotMinutes);
+
+        while (slot < end && slots.size() < limit) {
+            int free = nextAcrossDays(words, slot, end, false);
+            if (free == end) {
+                break;
+            }
+            int busy = nextAcrossDays(words, free, end, true);
+            if ((long) (busy - free) * slotMinutes >= duration.toMinutes()) {
+                slots.add(new FreeSlot(origin.plusMinutes((long) free * slotMinutes), origin.plusMinutes((long) busy * slotMinutes)));
+            }
+            slot = busy;
+        }
+        return slots;
+    }
+
+    /**
+     * Marks a committed booking on the loaded days of its room.
+     */
+    public void booked(String roomName, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        RoomDays room = rooms.get(BookingLocks.roomKey(roomName));
+        if (room == null) {
+            return;
+        }
+        synchronized (room) {
+            room.version++;
+            for (LocalDate date = startsAt.toLocalDate(); !date.isAfter(lastDate(finishesAt)); date = date.plusDays(1)) {
+                Day day = room.days.get(date);
+                if (day != null) {
+                    mark(day, date, startsAt, finishesAt);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears a committed deletion from the loaded days of its room. Days where the bits
+     * can't be cleared safely are dropped and reloaded when needed.
+     */
+    public void released(String roomName, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        RoomDays room = rooms.get(BookingLocks.roomKey(roomName));
+        if (room == null) {
+            return;
+        }
+        synchronized (room) {
+            room.version++;
+            for (LocalDate date = startsAt.toLocalDate(); !date.isAfter(lastDate(finishesAt)); date = date.plusDays(1)) {
+                Day day = room.days.get(date);
+                if (day != null && day.exact && onGrid(date, startsAt, finishesAt)) {
+                    clear(day.words, fromSlot(date, startsAt), toSlot(date, finishesAt));
+                } else {
+                    room.days.remove(date);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the room and every loaded day of it.
+     */
+    public void evict(String roomName) {
+        evictKey(BookingLocks.roomKey(roomName));
+    }
+
+    /**
+     * Drops every loaded day, for writes that bypass the entity events such as bulk deletes.
+     */
+    public void clear() {
+        for (String key : rooms.keySet()) {
+            evictKey(key);
+        }
+    }
+
+    private void evictKey(String key) {
+        RoomDays room = rooms.remove(key);
+        if (room != null) {
+            synchronized (room) {
+                room.version++;
+                room.days.clear();
+            }
+        }
+    }
+
+    public OccupancyFootprint footprint() {
+        long days = 0;
+        long exactDays = 0;
+        for (RoomDays room : rooms.values()) {
+            synchronized (room) {
+                days += room.days.size();
+                for (Day day : room.days.values()) {
+                    if (day.exact) {
+                        exactDays++;
+                    }
+                }
+            }
+        }
+        long bitsetBytes = days * wordsPerDay * Long.BYTES;
+        return new OccupancyFootprint(slotMinutes, rooms.size(), days, exactDays, bitsetBytes, bitsetBytes + days * DAY_OVERHEAD_BYTES);
+    }
+
+    /**
+     * Returns the days of the range, loading the missing ones with a single query.
+     */
+    private Map<LocalDate, Day> load(String roomName, RoomDays room, LocalDate first, LocalDate last) {
+        Map<LocalDate, Day> days = new HashMap<>();
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        long version;
+
+        synchronized (room) {
+            for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                Day day = room.days.get(date);
+                if (day != null) {
+                    days.put(date, day);
+                } else {
+                    if (firstMissing == null) {
+                        firstMissing = date;
+                    }
+                    lastMissing = date;
+                }
+            }
+            version = room.version;
+        }
+        if (firstMissing == null) {
+            return days;
+        }
+
+        Map<LocalDate, Day> missing = new HashMap<>();
+        for (LocalDate date = firstMissing; !date.isAfter(lastMissing); date = date.plusDays(1)) {
+            if (!days.containsKey(date)) {
+                missing.put(date, new Day(wordsPerDay));
+            }
+        }
+        for (BookedInterval interval : loader.load(roomName, firstMissing.atStartOfDay(), lastMissing.plusDays(1).atStartOfDay())) {
+            LocalDate from = max(interval.getStartsAt().toLocalDate(), firstMissing);
+            LocalDate to = min(lastDate(interval.getFinishesAt()), lastMissing);
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                Day day = missing.get(date);
+                if (day != null) {
+                    mark(day, date, interval.getStartsAt(), interval.getFinishesAt());
+                }
+            }
+        }
+
+        synchronized (room) {
+            if (room.version == version) {
+                room.days.putAll(missing);
+            }
+        }
+        days.putAll(missing);
+        return days;
+    }
+
+    private void mark(Day day, LocalDate date, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        int from = fromSlot(date, startsAt);
+        int to = toSlot(date, finishesAt);
+        if (!onGrid(date, startsAt, finishesAt) || any(day.words, from, to)) {
+            day.exact = false;
+        }
+        set(day.words, from, to);
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate lastDate(LocalDateTime finishesAt) {
+        return finishesAt.minusNanos(1).toLocalDate();
+    }
+
+    /**
+     * First slot of the date touched by an interval starting at startsAt, rounding down.
+     */
+    private int fromSlot(LocalDate date, LocalDateTime startsAt) {
+        if (startsAt.toLocalDate().isBefore(date)) {
+            return 0;
+        }
+        return (int) (startsAt.toLocalTime().toNanoOfDay() / slotNanos);
+    }
+
+    /**
+     * Slot after the last one of the date touched by an interval finishing at finishesAt, rounding up.
+     */
+    private int toSlot(LocalDate date, LocalDateTime finishesAt) {
+        if (finishesAt.toLocalDate().isAfter(date)) {
+            return slotsPerDay;
+        }
+        return (int) ((finishesAt.toLocalTime().toNanoOfDay() + slotNanos - 1) / slotNanos);
+    }
+
+    private boolean onGrid(LocalDateTime time) {
+        return time.toLocalTime().toNanoOfDay() % slotNanos == 0;
+    }
+
+    /**
+     * Whether the part of [startsAt, finishesAt) falling on the date starts and finishes on the grid.
+     */
+    private boolean onGrid(LocalDate date, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        return (startsAt.toLocalDate().isBefore(date) || onGrid(startsAt))
+                && (finishesAt.toLocalDate().isAfter(date) || onGrid(finishesAt));
+    }
+
+    /**
+     * Next slot from the given one whose bit has the value, or end, walking the days in order.
+     */
+    private int nextAcrossDays(long[][] words, int slot, int end, boolean busy) {
+        while (slot < end) {
+            int day = slot / slotsPerDay;
+            int found = next(words[day], slot % slotsPerDay, slotsPerDay, busy);
+            if (found < slotsPerDay) {
+                return Math.min(day * slotsPerDay + found, end);
+            }
+            slot = (day + 1) * slotsPerDay;
+        }
+        return end;
+    }
+
+    static int next(long[] words, int from, int limit, boolean busy) {
+        if (from >= limit) {
+            return limit;
+        }
+        int i = from >>> 6;
+        long word = (busy ? words[i] : ~words[i]) & (-1L << from);
+        while (word == 0) {
+            if (++i == words.length) {
+                return limit;
+            }
+            word = busy ? words[i] : ~words[i];
+        }
+        return Math.min((i << 6) + Long.numberOfTrailingZeros(word), limit);
+    }
+
+    /**
+     * Whether any bit in [from, to) is set.
+     */
+    static boolean any(long[] words, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            return (words[first] & firstMask & lastMask) != 0;
+        }
+        if ((words[first] & firstMask) != 0) {
+            return true;
+        }
+        for (int i = first + 1; i < last; i++) {
+            if (words[i] != 0) {
+                return true;
+            }
+        }
+        return (words[last] & lastMask) != 0;
+    }
+
+    static void set(long[] words, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+            return;
+        }
+        words[first] |= firstMask;
+        for (int i = first + 1; i < last; i++) {
+            words[i] = -1L;
+        }
+        words[last] |= lastMask;
+    }
+
+    static void clear(long[] words, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] &= ~(firstMask & lastMask);
+            return;
+        }
+        words[first] &= ~firstMask;
+        for (int i = first + 1; i < last; i++) {
+            words[i] = 0;
+        }
+        words[last] &= ~lastMask;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.services;
+
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.AppointmentSeriesRepository;
+
+import java.util.Collections;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the slot occupancy bitsets with accwe.occupancy.enabled=true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "accwe.occupancy.enabled", havingValue = "true")
+public class SlotOccupancyConfiguration {
+
+    @Bean
+    public SlotOccupancy slotOccupancy(@Value("${accwe.occupancy.slot-minutes:5}") int slotMinutes,
+                                       @Value("${accwe.occupancy.max-days-per-room:93}") int maxDaysPerRoom,
+                                       AppointmentRepository appointmentRepository,
+                                       AppointmentSeriesRepository appointmentSeriesRepository,
+                                       EntityManagerFactory entityManagerFactory) {
+        SlotOccupancy slotOccupancy = new SlotOccupancy(slotMinutes, maxDaysPerRoom,
+                (roomName, from, to) -> AppointmentSeriesService.withOccurrences(
+                        appointmentRepository.findRoomIntervals(Collections.singleton(roomName), from, to),
+                        appointmentSeriesRepository.findRoomSeries(Collections.singleton(roomName), from, to), from, to));
+
+        SlotOccupancyListener listener = new SlotOccupancyListener(slotOccupancy);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+
+        return slotOccupancy;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.services;
+
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.AppointmentSeries;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Applies the committed appointment inserts, deletes and updates to the slot occupancy,
+ * so rolled back writes never reach the bitsets. Writes of a series drop the loaded days
+ * of its room, which are reloaded with the new occurrences when needed.
+ */
+class SlotOccupancyListener implements PostCommitInsertEventListener, PostCommitDeleteEventListener, PostCommitUpdateEventListener {
+
+    private final transient SlotOccupancy slotOccupancy;
+
+    SlotOccupancyListener(SlotOccupancy slotOccupancy) {
+        this.slotOccupancy = slotOccupancy;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        evictSeriesRoom(event.getEntity());
+        Appointment appointment = appointment(event.getEntity());
+        if (appointment != null) {
+            slotOccupancy.booked(appointment.getRoom().getRoomName(), appointment.getStartsAt(), appointment.getFinishesAt());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        evictSeriesRoom(event.getEntity());
+        Appointment appointment = appointment(event.getEntity());
+        if (appointment != null) {
+            slotOccupancy.released(appointment.getRoom().getRoomName(), appointment.getStartsAt(), appointment.getFinishesAt());
+        }
+    }
+
+    /**
+     * The previous room and dates are not at hand, so every loaded day is dropped.
+     */
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (appointment(event.getEntity()) != null || event.getEntity() instanceof AppointmentSeries) {
+            slotOccupancy.clear();
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Appointment.class.equals(persister.getMappedClass()) || AppointmentSeries.class.equals(persister.getMappedClass());
+    }
+
+    /**
+     * Still abstract in Hibernate 5, which calls requiresPostCommitHandling.
+     */
+    @Deprecated
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private void evictSeriesRoom(Object entity) {
+        if (entity instanceof AppointmentSeries && ((AppointmentSeries) entity).getRoom() != null) {
+            slotOccupancy.evict(((AppointmentSeries) entity).getRoom().getRoomName());
+        }
+    }
+
+    private static Appointment appointment(Object entity) {
+        if (!(entity instanceof Appointment)) {
+            return null;
+        }
+        Appointment appointment = (Appointment) entity;
+        if (appointment.getRoom() == null || !appointment.hasValidInterval()) {
+            return null;
+        }
+        return appointment;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Change version of each entity table, bumped after every committed insert, update or delete of
+ * one of its rows. Two reads of a table seeing the same version return the same rows, which lets
+ * the list and detail endpoints answer conditional requests without reading the table.
+ *
+ * The versions live in memory: the epoch of this instance in the ETags, its boot time and a random
+ * part, keeps a restarted server or another instance from matching the ETags of this one. Writes
+ * made outside the application don't bump the versions, so the ETags also change every time to live,
+ * bounding how long such a write can be answered with a 304.
+ */
+public class TableVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36)
+            + Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final long ttlMillis;
+
+    private final LongSupplier clock;
+
+    /**
+     * ETags that only change with the versions.
+     */
+    public TableVersions() {
+        this(Long.MAX_VALUE, System::currentTimeMillis);
+    }
+
+    /**
+     * @param ttlMillis Time to live of the ETags, in milliseconds.
+     * @param clock Current time in milliseconds.
+     */
+    public TableVersions(long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    public long current(Class<?> table) {
+        AtomicLong version = versions.get(table);
+        return version != null ? version.get() : 0;
+    }
+
+    public void bump(Class<?> table) {
+        versions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * @return a strong ETag, quoted, made of the epoch, the current period of the time to live and the
+     * current version of each table, in order.
+     */
+    public String etag(Class<?>... tables) {
+        return etag(null, tables);
+    }
+
+    /**
+     * @param representation Suffix telling a representation of the same rows apart, or null.
+     * @return the ETag of the tables, followed by the representation.
+     */
+    public String etag(String representation, Class<?>... tables) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch)
+                .append('-').append(Long.toString(clock.getAsLong() / ttlMillis, 36));
+        for (Class<?> table : tables) {
+            etag.append('-').append(current(table));
+        }
+        if (representation != null) {
+            etag.append('-').append(representation);
+        }
+        return etag.append('"').toString();
+    }
+}
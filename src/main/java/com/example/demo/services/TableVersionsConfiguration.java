@@ -0,0 +1,35 @@
+package com.example.demo.services;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps the table versions up to date with the committed writes. Their ETags live as long as the
+ * encoded responses, accwe.response-cache.ttl-seconds.
+ */
+@Configuration
+public class TableVersionsConfiguration {
+
+    @Bean
+    public TableVersions tableVersions(EntityManagerFactory entityManagerFactory,
+                                       @Value("${accwe.response-cache.ttl-seconds:600}") long ttlSeconds) {
+        TableVersions tableVersions = new TableVersions(TimeUnit.SECONDS.toMillis(ttlSeconds), System::currentTimeMillis);
+
+        TableVersionsListener listener = new TableVersionsListener(tableVersions);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+
+        return tableVersions;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.controllers.AnalyticsController;
+import com.example.demo.dto.UtilizationReport;
+import com.example.demo.entities.*;
+import com.example.demo.services.AnalyticsService;
+import com.example.demo.services.GroupBy;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(AnalyticsService.class)
+class AnalyticsServiceUnitTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    /**
+     * Tests that booked minutes are clipped to the window, split at midnight and rolled up into weeks starting on Monday.
+     */
+    @Test
+    void should_aggregate_booked_minutes_per_day_and_week() {
+        Doctor doctor = entityManager.persist(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+        Room dermatology = entityManager.persist(new Room("Dermatology"));
+        Room oncology = entityManager.persist(new Room("Oncology"));
+
+        // Sunday 23/04/2023 to Tuesday 25/04/2023, from noon to noon.
+        LocalDateTime from = LocalDateTime.of(2023, 4, 23, 12, 0);
+        LocalDateTime to = LocalDateTime.of(2023, 4, 25, 12, 0);
+
+        entityManager.persist(new Appointment(null, doctor, dermatology, from.minusHours(1), from.plusHours(1)));                   // 60 minutes in the window
+        entityManager.persist(new Appointment(null, doctor, dermatology, LocalDateTime.of(2023, 4, 23, 23, 30), LocalDateTime.of(2023, 4, 24, 0, 30)));
+        entityManager.persist(new Appointment(null, null, oncology, LocalDateTime.of(2023, 4, 24, 10, 0), LocalDateTime.of(2023, 4, 24, 10, 45)));
+        entityManager.persist(new Appointment(null, doctor, oncology, to, to.plusHours(1)));                                        // outside the window
+
+        UtilizationReport byRoom = analyticsService.utilization(from, to, GroupBy.ROOM);
+
+        assertThat(byRoom.getGroupBy()).isEqualTo("room");
+        assertThat(byRoom.getEntries()).extracting(UtilizationReport.Entry::getKey, UtilizationReport.Entry::getBookedMinutes)
+                .containsExactly(tuple("Dermatology", 120L), tuple("Oncology", 45L));
+
+        UtilizationReport.Entry dermatologyEntry = byRoom.getEntries().get(0);
+        assertThat(dermatologyEntry.getDays()).extracting(UtilizationReport.Period::getBookedMinutes, UtilizationReport.Period::getAvailableMinutes)
+                .containsExactly(tuple(90L, 720L), tuple(30L, 1440L), tuple(0L, 720L));
+        assertThat(dermatologyEntry.getWeeks()).extracting(UtilizationReport.Period::getStartsOn, UtilizationReport.Period::getBookedMinutes)
+                .containsExactly(tuple(LocalDate.of(2023, 4, 23), 90L), tuple(LocalDate.of(2023, 4, 24), 30L));
+        assertThat(dermatologyEntry.getDays().get(0).getUtilization()).isEqualTo(0.125);
+
+        UtilizationReport byDoctor = analyticsService.utilization(from, to, GroupBy.DOCTOR);
+        assertThat(byDoctor.getEntries()).extracting(UtilizationReport.Entry::getKey, UtilizationReport.Entry::getBookedMinutes)
+                .containsExactly(tuple(String.valueOf(doctor.getId()), 120L));
+    }
+
+    /**
+     * Tests that the occurrences of a series inside the window are counted without expanding the rest.
+     */
+    @Test
+    void should_aggregate_series_occurrences() {
+        Room room = entityManager.persist(new Room("Dermatology"));
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 3, 9, 0);
+        entityManager.persist(new AppointmentSeries(null, null, room, startsAt, startsAt.plusHours(1), 7, 52));
+
+        UtilizationReport report = analyticsService.utilization(LocalDateTime.of(2023, 4, 24, 9, 30), LocalDateTime.of(2023, 5, 8, 0, 0), GroupBy.ROOM);
+
+        assertThat(report.getEntries()).extracting(UtilizationReport.Entry::getKey, UtilizationReport.Entry::getBookedMinutes)
+                .containsExactly(tuple("Dermatology", 90L));
+    }
+}
+
+@WebMvcTest(AnalyticsController.class)
+class AnalyticsControllerUnitTest {
+
+    @MockBean
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Tests that unknown groupings and empty or too long windows are rejected.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldNotGetUtilizationOfInvalidRequest() throws Exception {
+        mockMvc.perform(get("/api/analytics/utilization")
+                        .param("from", "2023-04-24T08:00:00")
+                        .param("to", "2023-04-25T08:00:00")
+                        .param("groupBy", "patient"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/analytics/utilization")
+                        .param("from", "2023-04-24T08:00:00")
+                        .param("to", "2023-04-24T08:00:00"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/analytics/utilization")
+                        .param("from", "2023-04-24T08:00:00")
+                        .param("to", "2025-04-24T08:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldGetUtilization() throws Exception {
+        mockMvc.perform(get("/api/analytics/utilization")
+                        .param("from", "2023-04-24T08:00:00")
+                        .param("to", "2023-04-25T08:00:00")
+                        .param("groupBy", "doctor"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+
+import com.example.demo.dto.BatchReport;
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+import com.example.demo.services.AppointmentBatchService;
+import com.example.demo.services.BookingLocks;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({AppointmentBatchService.class, BookingLocks.class})
+class AppointmentBatchServiceUnitTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AppointmentBatchService appointmentBatchService;
+
+    @SpyBean
+    private AppointmentRepository appointmentRepository;
+
+    private Patient patient;
+    private Doctor doctor;
+    private Room room;
+
+    private final LocalDateTime origin = LocalDateTime.of(2023, 4, 24, 8, 0);
+
+    @BeforeEach
+    void setup() {
+        patient = entityManager.persist(new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com"));
+        doctor = entityManager.persist(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+        room = entityManager.persist(new Room("Dermatology"));
+    }
+
+    private Appointment appointment(Room room, int startHour, int finishHour) {
+        return new Appointment(null, null, room, origin.plusHours(startHour), origin.plusHours(finishHour));
+    }
+
+    /**
+     * Tests that a batch is sorted and swept per room: overlaps with stored appointments
+     * and with earlier appointments of the batch are rejected, the rest are inserted.
+     */
+    @Test
+    void should_accept_only_non_overlapping_appointments() {
+        entityManager.persist(appointment(room, 2, 3));
+
+        List<Appointment> batch = new ArrayList<>(Arrays.asList(
+                appointment(new Room("Dermatology"), 4, 5),  // free
+                appointment(new Room("Dermatology"), 0, 1),  // free
+                appointment(new Room("Dermatology"), 1, 3),  // overlaps the stored one
+                appointment(new Room("Dermatology"), 4, 6),  // overlaps the first one of the batch
+                appointment(new Room("Oncology"), 4, 5),     // other room, new
+                appointment(new Room("Oncology"), 5, 6),     // back to back
+                appointment(new Room("Oncology"), 6, 6)));   // invalid
+
+        BatchReport report = appointmentBatchService.createAll(batch);
+
+        assertThat(report.getAccepted()).isEqualTo(4);
+        assertThat(report.getRejected()).isEqualTo(3);
+        assertThat(report.getItems()).extracting(BatchReport.Item::getStatus).containsExactly(
+                BatchReport.Status.ACCEPTED, BatchReport.Status.ACCEPTED, BatchReport.Status.REJECTED,
+                BatchReport.Status.REJECTED, BatchReport.Status.ACCEPTED, BatchReport.Status.ACCEPTED,
+                BatchReport.Status.REJECTED);
+        assertThat(report.getItems().get(2).getReason()).isEqualTo("room is already booked");
+        assertThat(report.getItems().get(3).getReason()).isEqualTo("room is booked by a previous appointment of the batch");
+        assertThat(report.getItems().get(6).getReason()).isEqualTo("invalid appointment");
+        assertThat(report.getItems().get(0).getId()).isPositive();
+
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(appointmentRepository.findAll()).hasSize(5);
+        assertThat(entityManager.find(Room.class, "Oncology")).isNotNull();
+    }
+
+    /**
+     * Tests that the sweep also rejects appointments double-booking a doctor or a patient in another room.
+     */
+    @Test
+    void should_reject_doctor_and_patient_double_bookings() {
+        Patient otherPatient = entityManager.persist(new Patient("Paulino", "Antunez", 37, "p.antunez@email.com"));
+        Doctor otherDoctor = entityManager.persist(new Doctor("Miren", "Iniesta", 24, "m.iniesta@hospital.accwe"));
+        entityManager.persist(new Appointment(patient, doctor, room, origin, origin.plusHours(1)));
+
+        List<Appointment> batch = new ArrayList<>(Arrays.asList(
+                new Appointment(otherPatient, doctor, new Room("Oncology"), origin, origin.plusHours(1)),           // doctor is busy
+                new Appointment(patient, otherDoctor, new Room("Oncology"), origin, origin.plusHours(1)),           // patient is busy
+                new Appointment(otherPatient, otherDoctor, new Room("Oncology"), origin.plusHours(1), origin.plusHours(2)),
+                new Appointment(otherPatient, doctor, new Room("Emergency"), origin.plusHours(1), origin.plusHours(2))));  // other patient is busy in the batch
+
+        BatchReport report = appointmentBatchService.createAll(batch);
+
+        assertThat(report.getItems()).extracting(BatchReport.Item::getReason).containsExactly(
+                "doctor is already booked",
+                "patient is already booked",
+                null,
+                "patient is booked by a previous appointment of the batch");
+    }
+
+    /**
+     * Tests that stored appointments returned under the name the room was stored with, as MySQL does
+     * for names differing in case or trailing spaces, are swept in the lane of the name received.
+     */
+    @Test
+    void should_sweep_rooms_named_in_another_case() {
+        entityManager.persist(appointment(room, 2, 3));
+        // H2 compares names exactly, so the stored intervals are returned for the other name like MySQL would.
+        List<BookedInterval> stored = appointmentRepository.findRoomIntervals(Collections.singletonList("Dermatology"), origin, origin.plusHours(6));
+        doReturn(stored).when(appointmentRepository).findRoomIntervals(eq(Collections.singletonList("dermatology ")), any(), any());
+
+        BatchReport report = appointmentBatchService.createAll(new ArrayList<>(Arrays.asList(
+                appointment(new Room("dermatology "), 1, 3),
+                appointment(new Room("dermatology "), 4, 5))));
+
+        assertThat(report.getItems()).extracting(BatchReport.Item::getReason).containsExactly(
+                "room is already booked",
+                null);
+    }
+
+    /**
+     * Tests that the sweep holds with stored appointments overlapping each other, as legacy rows
+     * may: a long appointment keeps blocking the room after a shorter one inside it has finished.
+     */
+    @Test
+    void should_sweep_stored_appointments_overlapping_each_other() {
+        entityManager.persist(appointment(room, 2, 10));
+        entityManager.persist(appointment(room, 3, 4));
+
+        BatchReport report = appointmentBatchService.createAll(new ArrayList<>(Arrays.asList(
+                appointment(new Room("Dermatology"), 0, 1),
+                appointment(new Room("Dermatology"), 5, 6),
+                appointment(new Room("Dermatology"), 10, 11))));
+
+        assertThat(report.getItems()).extracting(BatchReport.Item::getReason).containsExactly(
+                null,
+                "room is already booked",
+                null);
+    }
+}
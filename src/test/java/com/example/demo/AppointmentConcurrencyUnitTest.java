@@ -0,0 +1,240 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+
+import com.example.demo.controllers.AppointmentController;
+import com.example.demo.repositories.*;
+import com.example.demo.entities.*;
+import com.example.demo.services.AppointmentBatchService;
+import com.example.demo.services.AppointmentBookingService;
+import com.example.demo.services.AppointmentExportService;
+import com.example.demo.services.BulkDeleteService;
+import com.example.demo.services.ReferenceBookingService;
+import com.example.demo.services.BookingLocks;
+
+/**
+ * Hammers createAppointment from many threads against a repository stub that keeps the
+ * appointments in memory and takes a few milliseconds to save, which opens a wide window
+ * between the overlap check and the insert.
+ */
+@WebMvcTest(AppointmentController.class)
+@Import({AppointmentBookingService.class, BookingLocks.class})
+class AppointmentConcurrencyUnitTest {
+
+    private static final int ROOMS = 50;
+    private static final int THREADS = 64;
+    private static final int BOOKINGS_PER_THREAD = 25;
+    private static final long SAVE_MILLIS = 2;
+
+    @MockBean
+    private AppointmentRepository appointmentRepository;
+
+    @MockBean
+    private AppointmentBatchService appointmentBatchService;
+
+    @MockBean
+    private AppointmentSeriesRepository appointmentSeriesRepository;
+
+    @MockBean
+    private AppointmentExportService appointmentExportService;
+
+    @MockBean
+    private BulkDeleteService bulkDeleteService;
+
+    @MockBean
+    private ReferenceBookingService referenceBookingService;
+
+    @Autowired
+    private AppointmentController appointmentController;
+
+    @Autowired
+    private BookingLocks bookingLocks;
+
+    private final Map<String, List<Appointment>> appointmentsByRoom = new ConcurrentHashMap<>();
+
+    /**
+     * Barrier the saves of these rooms wait on, when set.
+     */
+    private volatile CyclicBarrier saveBarrier;
+
+    private volatile List<String> barrierRooms = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        appointmentsByRoom.clear();
+        saveBarrier = null;
+
+        when(appointmentRepository.existsOverlappingInRoom(anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            Appointment candidate = new Appointment(null, null, new Room(invocation.getArgument(0)), invocation.getArgument(1), invocation.getArgument(2));
+            for (Appointment existingAppointment : roomAppointments(candidate.getRoom().getRoomName())) {
+                if (candidate.overlaps(existingAppointment)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            CyclicBarrier barrier = saveBarrier;
+            if (barrier != null && barrierRooms.contains(appointment.getRoom().getRoomName())) {
+                barrier.await(5, TimeUnit.SECONDS);
+            }
+            Thread.sleep(SAVE_MILLIS);
+            List<Appointment> appointments = appointmentsByRoom.computeIfAbsent(appointment.getRoom().getRoomName(), name -> new ArrayList<>());
+            synchronized (appointments) {
+                appointments.add(appointment);
+            }
+            return appointment;
+        });
+    }
+
+    private List<Appointment> roomAppointments(String roomName) {
+        List<Appointment> appointments = appointmentsByRoom.get(roomName);
+        if (appointments == null) {
+            return new ArrayList<>();
+        }
+        synchronized (appointments) {
+            return new ArrayList<>(appointments);
+        }
+    }
+
+    /**
+     * Tests that 64 threads booking overlapping slots in 50 rooms never double-book a room.
+     */
+    @Test
+    void concurrent_bookings_never_overlap() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        LocalDateTime origin = LocalDateTime.of(2023, 4, 24, 8, 0);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                    // Half an hour appointments starting on a 10 minutes grid: most of them collide.
+                    LocalDateTime startsAt = origin.plusMinutes(10L * random.nextInt(48));
+                    Room room = new Room("Room " + random.nextInt(ROOMS));
+                    Appointment appointment = new Appointment(null, null, room, startsAt, startsAt.plusMinutes(30));
+
+                    HttpStatus status = appointmentController.createAppointment(appointment, null).getStatusCode();
+                    if (status == HttpStatus.OK) {
+                        accepted.incrementAndGet();
+                    } else {
+                        assertThat(status).isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(accepted.get() + rejected.get()).isEqualTo(THREADS * BOOKINGS_PER_THREAD);
+        assertThat(rejected.get()).isPositive();
+
+        for (String roomName : appointmentsByRoom.keySet()) {
+            List<Appointment> appointments = roomAppointments(roomName);
+            appointments.sort(Comparator.comparing(Appointment::getStartsAt));
+            for (int i = 1; i < appointments.size(); i++) {
+                assertThat(appointments.get(i).overlaps(appointments.get(i - 1))).isFalse();
+            }
+        }
+    }
+
+    /**
+     * Tests that bookings of two rooms on different stripes save at the same time: both saves wait
+     * for each other on a barrier, which they would never reach together if bookings were serialized.
+     */
+    @Test
+    void bookings_of_rooms_on_different_stripes_run_in_parallel() throws Exception {
+        String room = "Dermatology";
+        String otherRoom = "Oncology";
+        assertThat(bookingLocks.stripeOf(BookingLocks.roomKey(room))).isNotEqualTo(bookingLocks.stripeOf(BookingLocks.roomKey(otherRoom)));
+
+        barrierRooms = Arrays.asList(room, otherRoom);
+        saveBarrier = new CyclicBarrier(2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        Future<HttpStatus> first = executor.submit(() -> appointmentController.createAppointment(
+                new Appointment(null, null, new Room(room), startsAt, startsAt.plusHours(1)), null).getStatusCode());
+        Future<HttpStatus> second = executor.submit(() -> appointmentController.createAppointment(
+                new Appointment(null, null, new Room(otherRoom), startsAt, startsAt.plusHours(1)), null).getStatusCode());
+
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(HttpStatus.OK);
+        assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(HttpStatus.OK);
+        assertThat(saveBarrier.isBroken()).isFalse();
+        executor.shutdown();
+    }
+
+    /**
+     * Tests that holding the lock of one room doesn't block a booking in a room on another stripe:
+     * both bookings meet on a barrier inside their saves, each one holding the lock of its room.
+     */
+    @Test
+    void different_rooms_are_not_serialized() throws Exception {
+        String room = "Dermatology";
+        String otherRoom = "Oncology";
+        ReentrantLock roomLock = (ReentrantLock) bookingLocks.get(BookingLocks.roomKey(room));
+        ReentrantLock otherRoomLock = (ReentrantLock) bookingLocks.get(BookingLocks.roomKey(otherRoom));
+        assertThat(roomLock).isNotSameAs(otherRoomLock);
+
+        AtomicBoolean bothLocked = new AtomicBoolean();
+        barrierRooms = Arrays.asList(room, otherRoom);
+        saveBarrier = new CyclicBarrier(2, () -> bothLocked.set(roomLock.isLocked() && otherRoomLock.isLocked()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        Future<HttpStatus> first = executor.submit(() -> appointmentController.createAppointment(
+                new Appointment(null, null, new Room(room), startsAt, startsAt.plusHours(1)), null).getStatusCode());
+        Future<HttpStatus> second = executor.submit(() -> appointmentController.createAppointment(
+                new Appointment(null, null, new Room(otherRoom), startsAt, startsAt.plusHours(1)), null).getStatusCode());
+
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(HttpStatus.OK);
+        assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(HttpStatus.OK);
+        assertThat(saveBarrier.isBroken()).isFalse();
+        assertThat(bothLocked).isTrue();
+        assertThat(roomLock.isLocked()).isFalse();
+        assertThat(otherRoomLock.isLocked()).isFalse();
+        executor.shutdown();
+    }
+}
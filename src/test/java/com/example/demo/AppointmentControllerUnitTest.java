@@ -1,7 +1,10 @@
 package com.example.demo;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -11,10 +14,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.*;
 
@@ -22,22 +30,54 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 import com.example.demo.controllers.AppointmentController;
 import com.example.demo.repositories.*;
 import com.example.demo.entities.*;
+import com.example.demo.dto.BatchReport;
+import com.example.demo.dto.Booking;
+import com.example.demo.services.AppointmentBatchService;
+import com.example.demo.services.AppointmentBookingService;
+import com.example.demo.services.AppointmentExportService;
+import com.example.demo.services.BulkDeleteService;
+import com.example.demo.services.ReferenceBookingService;
+import com.example.demo.services.BookingLocks;
+import com.example.demo.services.Conflict;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @WebMvcTest(AppointmentController.class)
+@Import({AppointmentBookingService.class, BookingLocks.class})
 class AppointmentControllerUnitTest{
 
     @MockBean
     private AppointmentRepository appointmentRepository;
 
+    @MockBean
+    private AppointmentBatchService appointmentBatchService;
+
+    @MockBean
+    private AppointmentSeriesRepository appointmentSeriesRepository;
+
+    @MockBean
+    private AppointmentExportService appointmentExportService;
+
+    @MockBean
+    private BulkDeleteService bulkDeleteService;
+
+    @MockBean
+    private ReferenceBookingService referenceBookingService;
+
     @Autowired 
     private MockMvc mockMvc;
 
@@ -64,6 +104,107 @@ class AppointmentControllerUnitTest{
                 
     }
 
+    @Test
+    void shouldCreateAppointmentReturningOnlyItWhenPreferringMinimal() throws Exception {
+        Room room = new Room("Dermatology");
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        Appointment appointment = new Appointment(null, null, room, startsAt, startsAt.plusHours(1));
+
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment saved = invocation.getArgument(0);
+            saved.setId(42);
+            return saved;
+        });
+
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .header("Prefer", "respond-async, return=minimal; charset=utf-8")
+                .content(objectMapper.writeValueAsString(appointment)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "http://localhost/api/appointments/42"))
+                .andExpect(header().string("Preference-Applied", "return=minimal"))
+                .andExpect(jsonPath("$.id").value(42))
+                .andExpect(jsonPath("$.room.roomName").value("Dermatology"));
+
+        verify(appointmentRepository, never()).findAll();
+    }
+
+    @Test
+    void shouldCreateBookingFromKeys() throws Exception {
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        Booking booking = new Booking("Dermatology", 3L, null, startsAt, startsAt.plusHours(1));
+
+        when(referenceBookingService.book(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            assertThat(appointment.getRoom().getRoomName()).isEqualTo("Dermatology");
+            assertThat(appointment.getDoctor().getId()).isEqualTo(3);
+            assertThat(appointment.getPatient()).isNull();
+            appointment.setId(42);
+            return Conflict.NONE;
+        });
+
+        mockMvc.perform(post("/api/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(booking)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "http://localhost/api/appointments/42"))
+                .andExpect(jsonPath("$.id").value(42))
+                .andExpect(jsonPath("$.roomName").value("Dermatology"))
+                .andExpect(jsonPath("$.doctorId").value(3))
+                .andExpect(jsonPath("$.startsAt").value("19:30 24/04/2023"));
+    }
+
+    @Test
+    void shouldNotCreateBookingWithUnknownKeys() throws Exception {
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        Booking booking = new Booking("Dermatology", 3L, 7L, startsAt, startsAt.plusHours(1));
+
+        when(referenceBookingService.book(any(Appointment.class))).thenThrow(new DataIntegrityViolationException("Patient 7 doesn't exist"));
+
+        mockMvc.perform(post("/api/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(booking)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldNotCreateOverlappingBooking() throws Exception {
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        Booking booking = new Booking("Dermatology", null, null, startsAt, startsAt.plusHours(1));
+
+        when(referenceBookingService.book(any(Appointment.class))).thenReturn(Conflict.ROOM);
+
+        mockMvc.perform(post("/api/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(booking)))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void shouldNotCreateInvalidBooking() throws Exception {
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+
+        mockMvc.perform(post("/api/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new Booking(null, null, null, startsAt, startsAt.plusHours(1)))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/bookings").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new Booking("Dermatology", null, null, startsAt, startsAt))))
+                .andExpect(status().isBadRequest());
+
+        verify(referenceBookingService, never()).book(any(Appointment.class));
+    }
+
+    @Test
+    void shouldReturnEveryAppointmentWhenPreferringRepresentation() throws Exception {
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        Appointment appointment = new Appointment(null, null, new Room("Dermatology"), startsAt, startsAt.plusHours(1));
+
+        when(appointmentRepository.findAll()).thenReturn(Collections.singletonList(appointment));
+
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .header("Prefer", "return=representation")
+                .content(objectMapper.writeValueAsString(appointment)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Location"))
+                .andExpect(jsonPath("$[0].room.roomName").value("Dermatology"));
+    }
+
     @Test
     void shouldNotCreateAppointment() throws Exception {
         
@@ -112,6 +253,7 @@ class AppointmentControllerUnitTest{
         appointments.add(appointment);
         
         when(appointmentRepository.findAll()).thenReturn(appointments);
+        when(appointmentRepository.existsOverlappingInRoom(room.getRoomName(), startsAt, finishesAt)).thenReturn(true);
         mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(appointment2)))
                 .andExpect(status().isNotAcceptable());
@@ -158,6 +300,141 @@ class AppointmentControllerUnitTest{
 
     }
     
+    @Test
+    void shouldNotCreateAppointmentWhenDoctorIsBusy() throws Exception {
+        Patient patient = new Patient("Paulino", "Antunez", 37, "p.antunez@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Oncology");
+
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        LocalDateTime finishesAt = startsAt.plusHours(1);
+
+        doctor.setId(1);
+        patient.setId(2);
+
+        Appointment appointment = new Appointment(patient, doctor, room, startsAt, finishesAt);
+
+        when(appointmentRepository.existsOverlappingForDoctor(1, startsAt, finishesAt)).thenReturn(true);
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(appointment)))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void shouldNotCreateAppointmentWhenPatientIsBusy() throws Exception {
+        Patient patient = new Patient("Paulino", "Antunez", 37, "p.antunez@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Oncology");
+
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        LocalDateTime finishesAt = startsAt.plusHours(1);
+
+        doctor.setId(1);
+        patient.setId(2);
+
+        Appointment appointment = new Appointment(patient, doctor, room, startsAt, finishesAt);
+
+        when(appointmentRepository.existsOverlappingForPatient(2, startsAt, finishesAt)).thenReturn(true);
+        mockMvc.perform(post("/api/appointment").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(appointment)))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    /**
+     * Tests that a page of appointments is read after the id in the cursor, and that the last page has no next cursor.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldGetPageOfAppointments() throws Exception {
+        Appointment appointment = new Appointment(null, null, new Room("Oncology"), LocalDateTime.of(2023, 4, 24, 19, 30), LocalDateTime.of(2023, 4, 24, 20, 30));
+        appointment.setId(8);
+
+        List<Appointment> page = new ArrayList<>();
+        page.add(appointment);
+
+        when(appointmentRepository.findByIdGreaterThanOrderByIdAsc(7, PageRequest.of(0, 11))).thenReturn(page);
+        mockMvc.perform(get("/api/appointments")
+                        .param("after", Base64.getUrlEncoder().withoutPadding().encodeToString("k:7".getBytes(StandardCharsets.UTF_8)))
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(8))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void shouldGetPageOfAppointmentSummaries() throws Exception {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("id", 8L);
+        summary.put("roomName", "Oncology");
+        summary.put("doctorId", 3L);
+        summary.put("startsAt", LocalDateTime.of(2023, 4, 24, 19, 30));
+        summary.put("finishesAt", LocalDateTime.of(2023, 4, 24, 20, 30));
+        AppointmentSummary projection = new SpelAwareProxyProjectionFactory().createProjection(AppointmentSummary.class, summary);
+
+        when(appointmentRepository.findSummariesAfter(0, PageRequest.of(0, 2))).thenReturn(Arrays.asList(projection, projection));
+        mockMvc.perform(get("/api/appointments").param("view", "summary").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].roomName").value("Oncology"))
+                .andExpect(jsonPath("$[0].doctorId").value(3))
+                .andExpect(jsonPath("$[0].patientId").doesNotExist())
+                .andExpect(jsonPath("$[0].startsAt").value("19:30 24/04/2023"))
+                .andExpect(jsonPath("$[0].room").doesNotExist())
+                .andExpect(header().string("X-Next-Cursor", Base64.getUrlEncoder().withoutPadding().encodeToString("k:8".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldGetRoomAgenda() throws Exception {
+        Appointment appointment = new Appointment(null, null, new Room("Oncology"), LocalDateTime.of(2023, 4, 24, 19, 30), LocalDateTime.of(2023, 4, 24, 20, 30));
+        appointment.setId(8);
+
+        when(appointmentRepository.findAll(any(Specification.class), eq(Sort.by("startsAt", "id")))).thenReturn(Collections.singletonList(appointment));
+        mockMvc.perform(get("/api/appointments")
+                        .param("room", "Oncology")
+                        .param("from", "2023-04-24T00:00:00")
+                        .param("to", "2023-04-25T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(8));
+    }
+
+    @Test
+    void shouldNotFilterAppointmentsWithEmptyWindowOrCursor() throws Exception {
+        mockMvc.perform(get("/api/appointments")
+                        .param("from", "2023-04-25T00:00:00")
+                        .param("to", "2023-04-24T00:00:00"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/appointments").param("doctorId", "3").param("limit", "10"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/appointments").param("doctorId", "3").param("view", "summary"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldNotGetAppointmentsWithUnknownView() throws Exception {
+        mockMvc.perform(get("/api/appointments").param("view", "compact"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldExportAppointmentsAsNdjson() throws Exception {
+        when(appointmentExportService.export(any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/appointments/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
     @Test
     void shouldGetNoAppointments() throws Exception{
         List<Appointment> appointments = new ArrayList<Appointment>();
@@ -254,7 +531,7 @@ class AppointmentControllerUnitTest{
         assertThat(opt.get().getId()).isEqualTo(appointment.getId());
         assertThat(appointment.getId()).isEqualTo(1);
 
-        when(appointmentRepository.findById(appointment.getId())).thenReturn(opt);
+        when(bulkDeleteService.deleteAppointment(appointment.getId())).thenReturn(1);
         mockMvc.perform(delete("/api/appointments/" + appointment.getId()))
                 .andExpect(status().isOk());
                 
@@ -272,7 +549,40 @@ class AppointmentControllerUnitTest{
     void shouldDeleteAllAppointments() throws Exception{
         mockMvc.perform(delete("/api/appointments"))
                 .andExpect(status().isOk());
+        verify(bulkDeleteService).deleteAllAppointments();
                 
     }
-}
 
+    @Test
+    void shouldCreateAppointmentsInBatch() throws Exception{
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+
+        List<Appointment> appointments = new ArrayList<Appointment>();
+        appointments.add(new Appointment(patient, doctor, room, startsAt, startsAt.plusHours(1)));
+        appointments.add(new Appointment(patient, doctor, room, startsAt, startsAt.plusHours(1)));
+
+        BatchReport report = new BatchReport(new BatchReport.Item[] {
+                BatchReport.Item.accepted(0, 1),
+                BatchReport.Item.rejected(1, "room is booked by a previous appointment of the batch")});
+
+        when(appointmentBatchService.createAll(any())).thenReturn(report);
+        mockMvc.perform(post("/api/appointments/batch").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(appointments)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"));
+    }
+
+    @Test
+    void shouldNotCreateEmptyBatch() throws Exception{
+        mockMvc.perform(post("/api/appointments/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.example.demo.entities.*;
+import com.example.demo.services.AppointmentExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(AppointmentExportService.class)
+class AppointmentExportServiceUnitTest {
+
+    private static final int APPOINTMENTS = 2100;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AppointmentExportService appointmentExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Tests that every appointment is written on its own line, in id order and with its references,
+     * and that the persistence context doesn't keep the rows already written.
+     */
+    @Test
+    void should_export_one_line_per_appointment_in_id_order() throws Exception {
+        Doctor doctor = entityManager.persist(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+        Room room = entityManager.persist(new Room("Dermatology"));
+        LocalDateTime origin = LocalDateTime.of(2023, 4, 24, 8, 0);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            entityManager.persist(new Appointment(null, doctor, room, origin.plusMinutes(30L * i), origin.plusMinutes(30L * i + 30)));
+        }
+        entityManager.flush();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = appointmentExportService.export(out);
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(APPOINTMENTS);
+        assertThat(lines).hasSize(APPOINTMENTS);
+
+        long previousId = 0;
+        for (String line : lines) {
+            JsonNode appointment = objectMapper.readTree(line);
+            assertThat(appointment.get("id").asLong()).isGreaterThan(previousId);
+            assertThat(appointment.get("room").get("roomName").asText()).isEqualTo("Dermatology");
+            assertThat(appointment.get("doctor").get("id").asLong()).isEqualTo(doctor.getId());
+            previousId = appointment.get("id").asLong();
+        }
+        assertThat(lines[0]).contains("\"startsAt\":\"08:00 24/04/2023\"");
+
+        int managed = entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount();
+        assertThat(managed).isLessThan(1000);
+    }
+}
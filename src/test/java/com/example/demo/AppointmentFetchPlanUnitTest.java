@@ -0,0 +1,183 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+
+/**
+ * Counts the SQL statements run by the appointment and series reads, through the Hibernate statistics.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class AppointmentFetchPlanUnitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentSeriesRepository appointmentSeriesRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private Statistics statistics;
+
+    private int created;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        created = 0;
+    }
+
+    @AfterEach
+    void cleanup() {
+        appointmentRepository.deleteAllInBatch();
+        appointmentSeriesRepository.deleteAllInBatch();
+        patientRepository.deleteAllInBatch();
+        doctorRepository.deleteAllInBatch();
+        roomRepository.deleteAllInBatch();
+    }
+
+    /**
+     * Stores appointments that each have their own patient, doctor and room, the worst case for N+1 loading.
+     */
+    private Appointment createAppointments(int count) {
+        Appointment appointment = null;
+        for (int i = 0; i < count; i++, created++) {
+            LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 8, 0).plusHours(created);
+            appointment = appointmentRepository.save(new Appointment(
+                    new Patient("Jose Luis", "Olaya", 37, "j.olaya" + created + "@email.com"),
+                    new Doctor("Perla", "Amalia", 24, "p.amalia" + created + "@hospital.accwe"),
+                    new Room("Room " + created),
+                    startsAt, startsAt.plusHours(1)));
+        }
+        return appointment;
+    }
+
+    private long statementsOf(String url) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Tests that listing the appointments runs the same single query for 3 or 30 rows.
+     */
+    @Test
+    void should_list_appointments_with_a_constant_number_of_queries() throws Exception {
+        createAppointments(3);
+        long fewRows = statementsOf("/api/appointments");
+
+        createAppointments(27);
+        long manyRows = statementsOf("/api/appointments");
+
+        assertThat(fewRows).isEqualTo(1);
+        assertThat(manyRows).isEqualTo(fewRows);
+        assertThat(statementsOf("/api/appointments?limit=20")).isEqualTo(1);
+    }
+
+    /**
+     * Tests that an appointment is read with its patient, doctor and room in a single query.
+     */
+    @Test
+    void should_get_appointment_with_its_references_in_one_query() throws Exception {
+        Appointment appointment = createAppointments(1);
+
+        statistics.clear();
+        mockMvc.perform(get("/api/appointments/" + appointment.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.patient.email").value("j.olaya0@email.com"))
+                .andExpect(jsonPath("$.doctor.email").value("p.amalia0@hospital.accwe"))
+                .andExpect(jsonPath("$.room.roomName").value("Room 0"));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /**
+     * Stores weekly series that each have their own patient, doctor and room.
+     */
+    private AppointmentSeries createSeries(int count) {
+        AppointmentSeries series = null;
+        for (int i = 0; i < count; i++, created++) {
+            LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 8, 0).plusHours(created);
+            series = appointmentSeriesRepository.save(new AppointmentSeries(
+                    patientRepository.save(new Patient("Jose Luis", "Olaya", 37, "j.olaya" + created + "@email.com")),
+                    doctorRepository.save(new Doctor("Perla", "Amalia", 24, "p.amalia" + created + "@hospital.accwe")),
+                    roomRepository.save(new Room("Room " + created)),
+                    startsAt, startsAt.plusHours(1), 7, 10));
+        }
+        return series;
+    }
+
+    /**
+     * Tests that the series are listed, and one series read, with their references in a single query.
+     */
+    @Test
+    void should_get_series_with_their_references_in_one_query() throws Exception {
+        AppointmentSeries series = createSeries(3);
+        assertThat(statementsOf("/api/series")).isEqualTo(1);
+
+        statistics.clear();
+        mockMvc.perform(get("/api/series/" + series.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.patient.email").value("j.olaya2@email.com"))
+                .andExpect(jsonPath("$.doctor.email").value("p.amalia2@hospital.accwe"))
+                .andExpect(jsonPath("$.room.roomName").value("Room 2"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /**
+     * Tests that the series read by the conflict checks and the analytics don't load their
+     * references, whose keys are read from the foreign key columns.
+     */
+    @Test
+    void should_read_the_keys_of_series_without_loading_their_references() {
+        createSeries(3);
+        // Patients, doctors and rooms are cached: only a cold cache shows their loading.
+        entityManagerFactory.getCache().evictAll();
+
+        statistics.clear();
+        List<AppointmentSeries> series = appointmentSeriesRepository.findSeriesBetween(
+                LocalDateTime.of(2023, 4, 1, 0, 0), LocalDateTime.of(2023, 6, 1, 0, 0));
+        assertThat(series).hasSize(3);
+        for (AppointmentSeries s : series) {
+            assertThat(s.getRoom().getRoomName()).startsWith("Room ");
+            assertThat(s.getDoctor().getId()).isPositive();
+            assertThat(s.getPatient().getId()).isPositive();
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
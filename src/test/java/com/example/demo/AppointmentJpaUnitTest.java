@@ -3,11 +3,19 @@ package com.example.demo;
 import java.time.LocalDateTime;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
@@ -257,5 +265,129 @@ class AppointmentJpaUnitTest {
         Iterable appointments = repoAppointments.findAll();
         assertThat(appointments).isEmpty();
     }
-    
+
+    @Test
+    void should_find_overlapping_appointments_in_the_same_room(){
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        LocalDateTime finishesAt = startsAt.plusHours(1);
+
+        entityManager.persist(patient);
+        entityManager.persist(doctor);
+        entityManager.persist(room);
+        entityManager.persist(new Appointment(patient, doctor, room, startsAt, finishesAt));
+
+        assertThat(repoAppointments.existsOverlappingInRoom("Dermatology", startsAt, finishesAt)).isTrue();
+        assertThat(repoAppointments.existsOverlappingInRoom("Dermatology", startsAt.minusMinutes(30), startsAt.plusMinutes(1))).isTrue();
+        assertThat(repoAppointments.existsOverlappingInRoom("Dermatology", startsAt.minusHours(1), finishesAt.plusHours(1))).isTrue();
+        assertThat(repoAppointments.existsOverlappingInRoom("Dermatology", finishesAt, finishesAt.plusHours(1))).isFalse();
+        assertThat(repoAppointments.existsOverlappingInRoom("Dermatology", startsAt.minusHours(1), startsAt)).isFalse();
+        assertThat(repoAppointments.existsOverlappingInRoom("Oncology", startsAt, finishesAt)).isFalse();
+
+        // The longest appointment accepted is still found at its end.
+        LocalDateTime dayBefore = startsAt.minusDays(1);
+        entityManager.persist(new Appointment(null, null, room, dayBefore.minus(Appointment.MAX_DURATION), dayBefore));
+        assertThat(repoAppointments.existsOverlappingInRoom("Dermatology", dayBefore.minusMinutes(1), dayBefore)).isTrue();
+        assertThat(repoAppointments.existsOverlappingInRoom("Dermatology", dayBefore, dayBefore.plusMinutes(1))).isFalse();
+    }
+
+    @Test
+    void should_find_overlapping_appointments_of_the_same_doctor_or_patient(){
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        Doctor doctor = new Doctor ("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Room room = new Room("Dermatology");
+
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+        LocalDateTime finishesAt = startsAt.plusHours(1);
+
+        entityManager.persist(patient);
+        entityManager.persist(doctor);
+        entityManager.persist(room);
+        entityManager.persist(new Appointment(patient, doctor, room, startsAt, finishesAt));
+        entityManager.persist(new Appointment(null, null, room, finishesAt, finishesAt.plusHours(1)));
+
+        assertThat(repoAppointments.existsOverlappingForDoctor(doctor.getId(), startsAt, finishesAt)).isTrue();
+        assertThat(repoAppointments.existsOverlappingForDoctor(doctor.getId(), finishesAt, finishesAt.plusHours(1))).isFalse();
+        assertThat(repoAppointments.existsOverlappingForPatient(patient.getId(), startsAt.minusMinutes(30), startsAt.plusMinutes(30))).isTrue();
+        assertThat(repoAppointments.existsOverlappingForPatient(patient.getId() + 100, startsAt, finishesAt)).isFalse();
+
+        assertThat(repoAppointments.findRoomIntervals(Collections.singleton("Dermatology"), startsAt, finishesAt.plusHours(1)))
+                .extracting(BookedInterval::getStartsAt, BookedInterval::getDoctorId, BookedInterval::getPatientId)
+                .containsExactly(tuple(startsAt, doctor.getId(), patient.getId()), tuple(finishesAt, null, null));
+        assertThat(repoAppointments.findDoctorIntervals(Collections.singleton(doctor.getId()), startsAt, finishesAt.plusHours(1)))
+                .extracting(BookedInterval::getRoomName).containsExactly("Dermatology");
+    }
+
+    @Test
+    void should_walk_all_appointments_by_keyset_pages(){
+        Room room = entityManager.persist(new Room("Dermatology"));
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 8, 0);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(entityManager.persist(new Appointment(null, null, room, startsAt.plusHours(i), startsAt.plusHours(i + 1))).getId());
+        }
+
+        List<Long> walked = new ArrayList<>();
+        long after = 0;
+        List<Appointment> page;
+        do {
+            page = repoAppointments.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, 3));
+            for (Appointment appointment : page) {
+                walked.add(appointment.getId());
+                after = appointment.getId();
+            }
+        } while (page.size() == 3);
+
+        assertThat(walked).isEqualTo(ids);
+    }
+
+    /**
+     * Tests that summaries carry the keys of the references, even null ones, and leave the persistence context empty.
+     */
+    @Test
+    void should_read_summaries_without_managed_entities(){
+        Doctor doctor = entityManager.persist(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+        Room room = entityManager.persist(new Room("Dermatology"));
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 8, 0);
+        Appointment first = entityManager.persist(new Appointment(null, doctor, room, startsAt, startsAt.plusHours(1)));
+        Appointment second = entityManager.persist(new Appointment(null, null, room, startsAt.plusHours(1), startsAt.plusHours(2)));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<AppointmentSummary> summaries = repoAppointments.findAllSummaries();
+
+        assertThat(summaries).extracting(AppointmentSummary::getId, AppointmentSummary::getRoomName, AppointmentSummary::getDoctorId, AppointmentSummary::getPatientId, AppointmentSummary::getStartsAt)
+                .containsExactly(tuple(first.getId(), "Dermatology", doctor.getId(), null, startsAt),
+                                 tuple(second.getId(), "Dermatology", null, null, startsAt.plusHours(1)));
+        assertThat(repoAppointments.findSummariesAfter(first.getId(), PageRequest.of(0, 10))).extracting(AppointmentSummary::getId)
+                .containsExactly(second.getId());
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    /**
+     * Tests that only the appointments of the room overlapping with the window are returned, in start order.
+     */
+    @Test
+    void should_filter_appointments_by_room_doctor_and_window(){
+        Doctor doctor = entityManager.persist(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+        Room dermatology = entityManager.persist(new Room("Dermatology"));
+        Room oncology = entityManager.persist(new Room("Oncology"));
+        LocalDateTime day = LocalDateTime.of(2023, 4, 24, 0, 0);
+
+        Appointment late = entityManager.persist(new Appointment(null, null, dermatology, day.plusHours(18), day.plusHours(19)));
+        Appointment overnight = entityManager.persist(new Appointment(null, doctor, dermatology, day.minusHours(1), day.plusHours(1)));
+        entityManager.persist(new Appointment(null, doctor, dermatology, day.plusDays(1), day.plusDays(1).plusHours(1)));
+        Appointment other = entityManager.persist(new Appointment(null, doctor, oncology, day.plusHours(9), day.plusHours(10)));
+
+        assertThat(repoAppointments.findAll(AppointmentSpecifications.matching("Dermatology", null, null, day, day.plusDays(1)), Sort.by("startsAt", "id")))
+                .extracting(Appointment::getId).containsExactly(overnight.getId(), late.getId());
+        assertThat(repoAppointments.findAll(AppointmentSpecifications.matching(null, doctor.getId(), null, day, day.plusDays(1)), Sort.by("startsAt", "id")))
+                .extracting(Appointment::getId).containsExactly(overnight.getId(), other.getId());
+        assertThat(repoAppointments.findAll(AppointmentSpecifications.matching("Oncology", null, null, null, null), Sort.by("startsAt", "id")))
+                .extracting(Appointment::getId).containsExactly(other.getId());
+    }
+
 }
@@ -0,0 +1,15 @@
+package com.example.demo;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the query plan checks with the SQL generated by the MySQL dialect, explained on H2
+ * running in MySQL compatibility mode. It checks the SQL of the dialect, not the plans of
+ * the MySQL optimizer, which need EXPLAIN on a MySQL server.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:mysql;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL5InnoDBDialect"
+})
+class AppointmentMySQLDialectQueryPlanUnitTest extends AppointmentQueryPlanUnitTest {
+}
@@ -0,0 +1,111 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.AppointmentSpecifications;
+
+/**
+ * Checks that the overlap and agenda queries Hibernate generates for each dialect are answered
+ * with the (room_id, starts_at, finishes_at) index instead of a table scan, and that the overlap
+ * checks read a range of start dates bounded on both sides.
+ *
+ * The generated SQL is captured with a StatementInspector and explained on H2.
+ * AppointmentMySQLDialectQueryPlanUnitTest explains the SQL of the MySQL dialect on H2.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.demo.AppointmentQueryPlanUnitTest$CapturingStatementInspector")
+class AppointmentQueryPlanUnitTest {
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    AppointmentRepository appointmentRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the conditions H2 looks up in the index, in lower case.
+     */
+    private static String indexCondition(String plan, String index) {
+        String lowerCase = plan.toLowerCase();
+        int start = lowerCase.indexOf(index + ":");
+        assertThat(start).as("plan uses " + index).isNotNegative();
+        return lowerCase.substring(start, lowerCase.indexOf("*/", start));
+    }
+
+    @Test
+    void overlap_query_uses_the_room_time_index() {
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+
+        CapturingStatementInspector.statements.clear();
+        appointmentRepository.existsOverlappingInRoom("Dermatology", startsAt, startsAt.plusHours(1));
+
+        assertThat(CapturingStatementInspector.statements).hasSize(1);
+        String sql = CapturingStatementInspector.statements.get(0);
+        assertThat(sql.toLowerCase()).contains("limit").doesNotContain("join");
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class,
+                "Dermatology", startsAt.minusHours(24), startsAt.plusHours(1), startsAt, 1);
+
+        assertThat(indexCondition(plan, "idx_appointment_room_time"))
+                .contains("room_id = ?1", "starts_at > ?2", "starts_at < ?3");
+    }
+
+    @Test
+    void doctor_overlap_query_reads_a_bounded_range_of_the_doctor_time_index() {
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+
+        CapturingStatementInspector.statements.clear();
+        appointmentRepository.existsOverlappingForDoctor(1, startsAt, startsAt.plusHours(1));
+
+        String sql = CapturingStatementInspector.statements.get(0);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class,
+                1, startsAt.minusHours(24), startsAt.plusHours(1), startsAt, 1);
+
+        assertThat(indexCondition(plan, "idx_appointment_doctor_time"))
+                .contains("doctor_id = ?1", "starts_at > ?2", "starts_at < ?3");
+    }
+
+    @Test
+    void room_agenda_query_uses_the_room_time_index() {
+        LocalDateTime day = LocalDateTime.of(2023, 4, 24, 0, 0);
+
+        CapturingStatementInspector.statements.clear();
+        appointmentRepository.findAll(AppointmentSpecifications.matching("Dermatology", null, null, day, day.plusDays(1)), Sort.by("startsAt"));
+
+        assertThat(CapturingStatementInspector.statements).hasSize(1);
+        String sql = CapturingStatementInspector.statements.get(0);
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class,
+                "Dermatology", day.plusDays(1), day);
+
+        assertThat(plan.toLowerCase()).contains("idx_appointment_room_time");
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.controllers.AppointmentSeriesController;
+import com.example.demo.dto.FreeSlot;
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+import com.example.demo.services.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({AppointmentSeriesService.class, AppointmentBookingService.class, AvailabilityService.class, BookingLocks.class})
+class AppointmentSeriesUnitTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AppointmentSeriesService appointmentSeriesService;
+
+    @Autowired
+    private AppointmentBookingService appointmentBookingService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private Patient patient;
+    private Doctor doctor;
+    private Room room;
+
+    // Mondays from 9:00 to 10:00, for ten weeks.
+    private final LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 9, 0);
+
+    @BeforeEach
+    void setup() {
+        patient = entityManager.persist(new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com"));
+        doctor = entityManager.persist(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+        room = entityManager.persist(new Room("Dermatology"));
+    }
+
+    private AppointmentSeries weekly(Patient patient, Doctor doctor, Room room, LocalDateTime startsAt) {
+        return new AppointmentSeries(patient, doctor, room, startsAt, startsAt.plusHours(1), 7, 10);
+    }
+
+    /**
+     * Tests that a series is stored as one row and that single appointments overlapping any occurrence are rejected.
+     */
+    @Test
+    void should_reject_appointments_overlapping_an_occurrence() {
+        assertThat(appointmentSeriesService.create(weekly(patient, doctor, room, startsAt))).isEqualTo(Conflict.NONE);
+        entityManager.flush();
+
+        Room oncology = entityManager.persist(new Room("Oncology"));
+        LocalDateTime fifth = startsAt.plusWeeks(4);
+        assertThat(appointmentBookingService.findConflict(new Appointment(null, null, room, fifth.plusMinutes(30), fifth.plusHours(2)))).isEqualTo(Conflict.ROOM);
+        assertThat(appointmentBookingService.findConflict(new Appointment(null, doctor, oncology, fifth, fifth.plusHours(1)))).isEqualTo(Conflict.DOCTOR);
+        assertThat(appointmentBookingService.findConflict(new Appointment(patient, null, oncology, fifth, fifth.plusHours(1)))).isEqualTo(Conflict.PATIENT);
+        assertThat(appointmentBookingService.findConflict(new Appointment(patient, doctor, room, fifth.plusHours(1), fifth.plusHours(2)))).isEqualTo(Conflict.NONE);
+        assertThat(appointmentBookingService.findConflict(new Appointment(patient, doctor, room, startsAt.plusWeeks(10), startsAt.plusWeeks(10).plusHours(1)))).isEqualTo(Conflict.NONE);
+    }
+
+    /**
+     * Tests that a series overlapping a single appointment or another series is rejected.
+     */
+    @Test
+    void should_reject_series_overlapping_appointments_or_series() {
+        entityManager.persist(new Appointment(null, null, room, startsAt.plusWeeks(3), startsAt.plusWeeks(3).plusMinutes(30)));
+        assertThat(appointmentSeriesService.create(weekly(null, null, room, startsAt))).isEqualTo(Conflict.ROOM);
+
+        Room oncology = entityManager.persist(new Room("Oncology"));
+        assertThat(appointmentSeriesService.create(weekly(patient, doctor, oncology, startsAt))).isEqualTo(Conflict.NONE);
+        entityManager.flush();
+
+        // Every other day from the Saturday before: meets the weekly series on its third Monday.
+        Room emergency = entityManager.persist(new Room("Emergency"));
+        AppointmentSeries everyOtherDay = new AppointmentSeries(null, doctor, emergency, startsAt.minusDays(2), startsAt.minusDays(2).plusHours(1), 2, 10);
+        assertThat(appointmentSeriesService.create(everyOtherDay)).isEqualTo(Conflict.DOCTOR);
+
+        AppointmentSeries otherTime = new AppointmentSeries(null, doctor, emergency, startsAt.minusDays(2).plusHours(1), startsAt.minusDays(2).plusHours(2), 2, 10);
+        assertThat(appointmentSeriesService.create(otherTime)).isEqualTo(Conflict.NONE);
+    }
+
+    /**
+     * Tests that the room of a series is created with it, and not when the series is rejected.
+     */
+    @Test
+    void should_create_the_room_only_with_the_series() {
+        assertThat(appointmentSeriesService.create(weekly(patient, doctor, room, startsAt))).isEqualTo(Conflict.NONE);
+
+        assertThat(appointmentSeriesService.create(weekly(null, doctor, new Room("Oncology"), startsAt))).isEqualTo(Conflict.DOCTOR);
+        assertThat(roomRepository.findByRoomName("Oncology")).isEmpty();
+
+        assertThat(appointmentSeriesService.create(weekly(null, null, new Room("Oncology"), startsAt))).isEqualTo(Conflict.NONE);
+        assertThat(roomRepository.findByRoomName("Oncology")).isPresent();
+    }
+
+    /**
+     * Tests that the availability of a room skips the occurrences in the window.
+     */
+    @Test
+    void should_skip_occurrences_in_availability() {
+        appointmentSeriesService.create(weekly(patient, doctor, room, startsAt));
+        entityManager.flush();
+
+        LocalDateTime day = startsAt.plusWeeks(2).toLocalDate().atTime(8, 0);
+        assertThat(availabilityService.findRoomSlots("Dermatology", day, day.plusHours(4), Duration.ofMinutes(30), 10))
+                .extracting(FreeSlot::getStartsAt, FreeSlot::getFinishesAt)
+                .containsExactly(
+                        org.assertj.core.groups.Tuple.tuple(day, day.plusHours(1)),
+                        org.assertj.core.groups.Tuple.tuple(day.plusHours(2), day.plusHours(4)));
+    }
+}
+
+@WebMvcTest(AppointmentSeriesController.class)
+@Import({AppointmentSeriesService.class, BookingLocks.class})
+class AppointmentSeriesControllerUnitTest {
+
+    /**
+     * The web slice has no data source, so the transactions of the service run on a mock.
+     */
+    @TestConfiguration
+    static class TransactionConfiguration {
+
+        @Bean
+        TransactionTemplate transactionTemplate() {
+            return new TransactionTemplate(mock(PlatformTransactionManager.class));
+        }
+    }
+
+    @MockBean
+    private AppointmentSeriesRepository appointmentSeriesRepository;
+
+    @MockBean
+    private AppointmentRepository appointmentRepository;
+
+    @MockBean
+    private RoomRepository roomRepository;
+
+    @MockBean
+    private DoctorRepository doctorRepository;
+
+    @MockBean
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 9, 0);
+
+    /**
+     * Tests the creation of a weekly series via the "POST /api/series" endpoint.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldCreateSeries() throws Exception {
+        AppointmentSeries series = new AppointmentSeries(null, null, new Room("Dermatology"), startsAt, startsAt.plusHours(1), 7, 20);
+
+        when(roomRepository.findByRoomName("Dermatology")).thenReturn(Optional.of(new Room("Dermatology")));
+        mockMvc.perform(post("/api/series").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(series)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.lastFinishesAt").value("10:00 04/09/2023"));
+    }
+
+    /**
+     * Tests that series with overlapping occurrences are invalid, and that series of unknown doctors are rejected.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldNotCreateInvalidSeries() throws Exception {
+        AppointmentSeries overlapping = new AppointmentSeries(null, null, new Room("Dermatology"), startsAt, startsAt.plusDays(2), 1, 20);
+        mockMvc.perform(post("/api/series").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(overlapping)))
+                .andExpect(status().isBadRequest());
+
+        Doctor doctor = new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        doctor.setId(1);
+        AppointmentSeries unknownDoctor = new AppointmentSeries(null, doctor, new Room("Dermatology"), startsAt, startsAt.plusHours(1), 7, 20);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.empty());
+        mockMvc.perform(post("/api/series").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(unknownDoctor)))
+                .andExpect(status().isConflict());
+    }
+
+    /**
+     * Tests that only the occurrences of the window are expanded.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldGetOccurrencesOfWindow() throws Exception {
+        AppointmentSeries series = new AppointmentSeries(null, null, new Room("Dermatology"), startsAt, startsAt.plusHours(1), 7, 20);
+        when(appointmentSeriesRepository.findById(1L)).thenReturn(Optional.of(series));
+
+        mockMvc.perform(get("/api/series/1/occurrences")
+                        .param("from", "2023-05-08T09:30:00")
+                        .param("to", "2023-05-22T09:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].index").value(2))
+                .andExpect(jsonPath("$[0].startsAt").value("09:00 08/05/2023"))
+                .andExpect(jsonPath("$[1].index").value(3));
+    }
+
+    @Test
+    void shouldNotGetOccurrencesOfUnknownSeries() throws Exception {
+        when(appointmentSeriesRepository.findById(any(Long.class))).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/series/1/occurrences")
+                        .param("from", "2023-05-08T09:30:00")
+                        .param("to", "2023-05-22T09:00:00"))
+                .andExpect(status().isNotFound());
+    }
+}
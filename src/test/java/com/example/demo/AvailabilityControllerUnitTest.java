@@ -0,0 +1,144 @@
+package com.example.demo;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.controllers.AvailabilityController;
+import com.example.demo.repositories.*;
+import com.example.demo.entities.*;
+import com.example.demo.services.AvailabilityService;
+
+@WebMvcTest(AvailabilityController.class)
+@Import(AvailabilityService.class)
+class AvailabilityControllerUnitTest {
+
+    @MockBean
+    private AppointmentRepository appointmentRepository;
+
+    @MockBean
+    private AppointmentSeriesRepository appointmentSeriesRepository;
+
+    @MockBean
+    private RoomRepository roomRepository;
+
+    @MockBean
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final LocalDateTime origin = LocalDateTime.of(2023, 4, 24, 8, 0);
+
+    private BookedInterval interval(int startHour, int finishHour) {
+        LocalDateTime startsAt = origin.plusHours(startHour);
+        LocalDateTime finishesAt = origin.plusHours(finishHour);
+        return new BookedInterval() {
+            public String getRoomName() { return "Dermatology"; }
+            public Long getDoctorId() { return 1L; }
+            public Long getPatientId() { return 2L; }
+            public LocalDateTime getStartsAt() { return startsAt; }
+            public LocalDateTime getFinishesAt() { return finishesAt; }
+        };
+    }
+
+    /**
+     * Tests that the gaps between bookings are returned when they fit the duration, clipped to the
+     * window, skipping the ones too short and treating overlapping legacy bookings as one busy block.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldGetRoomAvailability() throws Exception {
+        List<BookedInterval> booked = new ArrayList<>(Arrays.asList(
+                interval(-1, 1), interval(2, 4), interval(3, 5), interval(5, 6)));
+
+        when(roomRepository.findByRoomName("Dermatology")).thenReturn(Optional.of(new Room("Dermatology")));
+        when(appointmentRepository.findRoomIntervals(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(booked);
+
+        mockMvc.perform(get("/api/rooms/Dermatology/availability")
+                        .param("from", "2023-04-24T08:00:00")
+                        .param("to", "2023-04-24T18:00:00")
+                        .param("duration", "60"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].startsAt").value("09:00 24/04/2023"))
+                .andExpect(jsonPath("$[0].finishesAt").value("10:00 24/04/2023"))
+                .andExpect(jsonPath("$[1].startsAt").value("14:00 24/04/2023"))
+                .andExpect(jsonPath("$[1].finishesAt").value("18:00 24/04/2023"));
+    }
+
+    /**
+     * Tests that the search stops after the requested number of slots.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldLimitDoctorAvailability() throws Exception {
+        List<BookedInterval> booked = new ArrayList<>(Arrays.asList(interval(1, 2), interval(3, 4)));
+
+        when(doctorRepository.existsById(1L)).thenReturn(true);
+        when(appointmentRepository.findDoctorIntervals(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(booked);
+
+        mockMvc.perform(get("/api/doctors/1/availability")
+                        .param("from", "2023-04-24T08:00:00")
+                        .param("to", "2023-04-24T18:00:00")
+                        .param("duration", "30")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].startsAt").value("08:00 24/04/2023"));
+    }
+
+    /**
+     * Tests that the search fails when the room doesn't exist.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldNotGetAvailabilityOfUnknownRoom() throws Exception {
+        when(roomRepository.findByRoomName("Dermatology")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/rooms/Dermatology/availability")
+                        .param("from", "2023-04-24T08:00:00")
+                        .param("to", "2023-04-24T18:00:00")
+                        .param("duration", "30"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Tests that the search fails when the window is empty or shorter than the duration.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldNotGetAvailabilityOfInvalidWindow() throws Exception {
+        mockMvc.perform(get("/api/doctors/1/availability")
+                        .param("from", "2023-04-24T18:00:00")
+                        .param("to", "2023-04-24T08:00:00")
+                        .param("duration", "30"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/doctors/1/availability")
+                        .param("from", "2023-04-24T08:00:00")
+                        .param("to", "2023-04-24T09:00:00")
+                        .param("duration", "90"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads and writes appointments and doctors in CBOR and Smile, where dates are epoch numbers.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class BinaryRepresentationsUnitTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private static final LocalDateTime STARTS_AT = LocalDateTime.of(2023, 4, 24, 8, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @AfterEach
+    void cleanup() {
+        appointmentRepository.deleteAllInBatch();
+        patientRepository.deleteAllInBatch();
+        doctorRepository.deleteAllInBatch();
+        roomRepository.deleteAllInBatch();
+    }
+
+    private Appointment appointment() {
+        return new Appointment(
+                new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com"),
+                new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"),
+                new Room("Dermatology"),
+                STARTS_AT, STARTS_AT.plusHours(1));
+    }
+
+    @Test
+    void should_list_appointments_in_cbor_with_epoch_dates() throws Exception {
+        appointmentRepository.save(appointment());
+
+        byte[] body = mockMvc.perform(get("/api/appointments").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode appointment = cborHttpMessageConverter.getObjectMapper().readTree(body).get(0);
+        assertThat(appointment.get("startsAt").isNumber()).isTrue();
+        assertThat(appointment.get("startsAt").asLong()).isEqualTo(STARTS_AT.toInstant(ZoneOffset.UTC).toEpochMilli());
+        assertThat(appointment.get("room").get("roomName").asText()).isEqualTo("Dermatology");
+
+        // JSON keeps its string dates.
+        mockMvc.perform(get("/api/appointments"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].startsAt").value("08:00 24/04/2023"));
+    }
+
+    @Test
+    void should_create_an_appointment_sent_in_smile() throws Exception {
+        ObjectMapper smileMapper = smileHttpMessageConverter.getObjectMapper();
+
+        byte[] body = mockMvc.perform(post("/api/appointment")
+                        .contentType(SMILE)
+                        .accept(SMILE)
+                        .content(smileMapper.writeValueAsBytes(appointment())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Appointment[] appointments = smileMapper.readValue(body, Appointment[].class);
+        assertThat(appointments).hasSize(1);
+        assertThat(appointments[0].getStartsAt()).isEqualTo(STARTS_AT);
+        assertThat(appointmentRepository.findAll().get(0).getFinishesAt()).isEqualTo(STARTS_AT.plusHours(1));
+    }
+
+    @Test
+    void should_get_a_doctor_in_cbor_with_its_own_etag() throws Exception {
+        Doctor doctor = doctorRepository.save(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+
+        String jsonEtag = mockMvc.perform(get("/api/doctors/" + doctor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        byte[] body = mockMvc.perform(get("/api/doctors/" + doctor.getId()).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, jsonEtag.replaceFirst("\"$", "-cbor\"")))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(cborHttpMessageConverter.getObjectMapper().readValue(body, Doctor.class).getEmail()).isEqualTo("p.amalia@hospital.accwe");
+
+        // The JSON ETag doesn't validate the CBOR representation.
+        mockMvc.perform(get("/api/doctors/" + doctor.getId()).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/doctors/" + doctor.getId()).accept(MediaType.TEXT_HTML))
+                .andExpect(status().isNotAcceptable());
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+import com.example.demo.services.BulkDeleteService;
+import com.example.demo.services.SlotOccupancy;
+import com.example.demo.services.TableVersions;
+import com.example.demo.services.TableVersionsConfiguration;
+
+/**
+ * Runs without the test transaction, since the versions are only bumped after commit.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({BulkDeleteService.class, TableVersionsConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkDeleteServiceUnitTest {
+
+    private static final int APPOINTMENTS = 200;
+
+    @Autowired
+    private BulkDeleteService bulkDeleteService;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private SlotOccupancy slotOccupancy;
+
+    @AfterEach
+    void cleanup() {
+        appointmentRepository.deleteAllInBatch();
+        doctorRepository.deleteAllInBatch();
+        roomRepository.deleteAllInBatch();
+    }
+
+    /**
+     * Books the new room and doctor every hour, inserting them through the cascade.
+     */
+    private List<Appointment> book(Room room, Doctor doctor) {
+        LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 8, 0);
+        List<Appointment> appointments = new ArrayList<>(APPOINTMENTS);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            appointments.add(new Appointment(null, doctor, room, startsAt.plusHours(i), startsAt.plusHours(i).plusMinutes(30)));
+        }
+        return appointmentRepository.saveAll(appointments);
+    }
+
+    /**
+     * Tests that the appointments are deleted with one statement, keeping their rooms and doctors,
+     * and that the version of the table is bumped once.
+     */
+    @Test
+    void should_delete_every_appointment_with_one_statement() {
+        book(new Room("Dermatology"), new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+        long version = tableVersions.current(Appointment.class);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        int deleted = bulkDeleteService.deleteAllAppointments();
+
+        assertThat(deleted).isEqualTo(APPOINTMENTS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(tableVersions.current(Appointment.class)).isEqualTo(version + 1);
+        assertThat(appointmentRepository.count()).isZero();
+        assertThat(roomRepository.count()).isEqualTo(1);
+        assertThat(doctorRepository.count()).isEqualTo(1);
+        verify(slotOccupancy).clear();
+    }
+
+    /**
+     * Tests that rooms still booked are not deleted, nor their version bumped, and that they are
+     * deleted once their appointments are.
+     */
+    @Test
+    void should_not_delete_referenced_rows() {
+        book(new Room("Dermatology"), null);
+        long version = tableVersions.current(Room.class);
+
+        assertThatThrownBy(() -> bulkDeleteService.deleteAllRooms())
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(tableVersions.current(Room.class)).isEqualTo(version);
+        assertThat(roomRepository.count()).isEqualTo(1);
+
+        bulkDeleteService.deleteAllAppointments();
+        assertThat(bulkDeleteService.deleteAllRooms()).isEqualTo(1);
+        assertThat(tableVersions.current(Room.class)).isEqualTo(version + 1);
+    }
+
+    /**
+     * Tests that a doctor is deleted by id with one statement and without being loaded, and that
+     * deleting it again finds no row and keeps the version.
+     */
+    @Test
+    void should_delete_one_row_by_id_with_one_statement() {
+        Doctor doctor = doctorRepository.save(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+        long version = tableVersions.current(Doctor.class);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(bulkDeleteService.deleteDoctor(doctor.getId())).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(tableVersions.current(Doctor.class)).isEqualTo(version + 1);
+
+        assertThat(bulkDeleteService.deleteDoctor(doctor.getId())).isZero();
+        assertThat(tableVersions.current(Doctor.class)).isEqualTo(version + 1);
+    }
+
+    /**
+     * Tests that a booked room is not deleted by name, and that deleting its appointment keeps it.
+     */
+    @Test
+    void should_not_delete_a_referenced_row_by_key() {
+        Appointment appointment = book(new Room("Dermatology"), null).get(0);
+
+        assertThatThrownBy(() -> bulkDeleteService.deleteRoom("Dermatology"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(bulkDeleteService.deleteAppointment(appointment.getId())).isEqualTo(1);
+        assertThat(appointmentRepository.existsById(appointment.getId())).isFalse();
+        assertThat(roomRepository.count()).isEqualTo(1);
+    }
+
+    /**
+     * Tests that deleting one appointment releases its slots alone instead of clearing the occupancy.
+     */
+    @Test
+    void should_release_the_slots_of_a_deleted_appointment() {
+        Appointment appointment = book(new Room("Dermatology"), null).get(0);
+
+        assertThat(bulkDeleteService.deleteAppointment(appointment.getId())).isEqualTo(1);
+
+        verify(slotOccupancy).released("Dermatology", appointment.getStartsAt(), appointment.getFinishesAt());
+        verify(slotOccupancy, never()).clear();
+    }
+
+    /**
+     * Tests that the doctors cached before the delete are not read from the second-level cache afterwards.
+     */
+    @Test
+    void should_evict_the_deleted_rows_from_the_cache() {
+        Doctor doctor = doctorRepository.save(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+        assertThat(doctorRepository.findById(doctor.getId())).isPresent();
+
+        bulkDeleteService.deleteAllDoctors();
+
+        assertThat(doctorRepository.findById(doctor.getId())).isEmpty();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+
+/**
+ * Checks the codec against the DateTimeFormatter of its pattern on random date times and strings.
+ */
+class DateTimeCodecUnitTest {
+
+    private static final int SAMPLES = 100_000;
+
+    private static final String CHARACTERS = "0123456789:/ -+aZ";
+
+    private static Jackson2ObjectMapperBuilder builder() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        new JacksonConfiguration().jackson2ObjectMapperBuilderCustomizer().customize(builder);
+        return builder;
+    }
+
+    private final ObjectMapper codecMapper = builder().build();
+
+    private final ObjectMapper formatterMapper = builder()
+            .serializers(new LocalDateTimeSerializer(DateTimeCodec.FORMATTER))
+            .deserializers(new LocalDateTimeDeserializer(DateTimeCodec.FORMATTER))
+            .build();
+
+    private static LocalDateTime randomDateTime(Random random) {
+        return LocalDateTime.of(1 + random.nextInt(9999), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                random.nextInt(24), random.nextInt(60)).plusDays(random.nextInt(4));
+    }
+
+    /**
+     * Printed date time with one or two characters replaced, and a day that may not exist in its month.
+     */
+    private static String randomText(Random random) {
+        char[] text = DateTimeCodec.FORMATTER.format(randomDateTime(random)).toCharArray();
+        int day = 28 + random.nextInt(4);
+        text[6] = (char) ('0' + day / 10);
+        text[7] = (char) ('0' + day % 10);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            text[random.nextInt(text.length)] = CHARACTERS.charAt(random.nextInt(CHARACTERS.length()));
+        }
+        return new String(text);
+    }
+
+    private static LocalDateTime parseWithFormatter(String text) {
+        try {
+            return LocalDateTime.parse(text, DateTimeCodec.FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the date time read by the mapper, or the class of the exception it threw.
+     */
+    private static Object read(ObjectMapper objectMapper, String text) {
+        try {
+            return objectMapper.readValue('"' + text + '"', LocalDateTime.class);
+        } catch (JsonProcessingException e) {
+            return e.getClass();
+        }
+    }
+
+    @Test
+    void prints_like_the_formatter_and_parses_back() {
+        Random random = new Random(19);
+        char[] buffer = new char[DateTimeCodec.LENGTH];
+
+        for (int i = 0; i < SAMPLES; i++) {
+            LocalDateTime value = randomDateTime(random).withSecond(random.nextInt(60));
+
+            assertThat(DateTimeCodec.format(value, buffer)).isTrue();
+            assertThat(new String(buffer)).isEqualTo(DateTimeCodec.FORMATTER.format(value));
+            assertThat(DateTimeCodec.parse(buffer, 0)).isEqualTo(value.withSecond(0));
+        }
+    }
+
+    @Test
+    void parses_what_the_formatter_parses_the_same_way_and_nothing_else() {
+        Random random = new Random(19);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            String text = randomText(random);
+            LocalDateTime parsed = DateTimeCodec.parse(text.toCharArray(), 0);
+
+            if (parsed != null) {
+                assertThat(parseWithFormatter(text)).as(text).isEqualTo(parsed);
+            }
+            assertThat(read(codecMapper, text)).as(text).isEqualTo(read(formatterMapper, text));
+        }
+    }
+
+    @Test
+    void days_past_the_end_of_the_month_are_left_to_the_formatter() {
+        char[] text = "08:00 31/04/2023".toCharArray();
+
+        assertThat(DateTimeCodec.parse(text, 0)).isNull();
+        assertThat(read(codecMapper, new String(text))).isEqualTo(LocalDateTime.of(2023, 4, 30, 8, 0));
+    }
+
+    @Test
+    void years_out_of_four_digits_are_left_to_the_formatter() throws Exception {
+        LocalDateTime value = LocalDateTime.of(12023, 4, 24, 8, 0);
+
+        assertThat(DateTimeCodec.format(value, new char[DateTimeCodec.LENGTH])).isFalse();
+        assertThat(codecMapper.writeValueAsString(value)).isEqualTo(formatterMapper.writeValueAsString(value));
+        assertThat(codecMapper.readValue(codecMapper.writeValueAsString(value), LocalDateTime.class)).isEqualTo(value);
+    }
+
+    @Test
+    void midnight_at_the_end_of_the_day_is_left_to_the_formatter() {
+        assertThat(DateTimeCodec.parse("24:00 24/04/2023".toCharArray(), 0)).isNull();
+        assertThat(read(codecMapper, "24:00 24/04/2023")).isEqualTo(LocalDateTime.of(2023, 4, 25, 0, 0));
+    }
+
+    @Test
+    void invalid_strings_fail_like_with_the_formatter() {
+        assertThatThrownBy(() -> codecMapper.readValue("\"08:00 24/13/2023\"", LocalDateTime.class))
+                .isInstanceOf(InvalidFormatException.class);
+        assertThat(read(codecMapper, "")).isNull();
+    }
+
+    static class Event {
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
+        public LocalDateTime startsAt;
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = DateTimeCodec.PATTERN)
+        public LocalDateTime finishesAt;
+    }
+
+    @Test
+    void other_patterns_of_json_format_are_kept() throws Exception {
+        Event event = new Event();
+        event.startsAt = LocalDateTime.of(2023, 4, 24, 8, 0);
+        event.finishesAt = LocalDateTime.of(2023, 4, 24, 9, 0);
+
+        String json = codecMapper.writeValueAsString(event);
+
+        assertThat(json).isEqualTo("{\"startsAt\":\"2023-04-24 08:00\",\"finishesAt\":\"09:00 24/04/2023\"}");
+        assertThat(codecMapper.readValue(json, Event.class).startsAt).isEqualTo(event.startsAt);
+    }
+}
@@ -2,16 +2,19 @@ package com.example.demo;
 
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 
 import com.example.demo.repositories.DoctorRepository;
+import com.example.demo.repositories.PersonSummary;
 import com.example.demo.entities.Doctor;
 
 
@@ -102,5 +105,18 @@ class DoctorJpaUnitTest {
         repository.deleteAll();
         assertThat(repository.findAll()).isEmpty();
     }
-    
+
+    @Test
+    void should_read_doctor_summaries_in_id_order(){
+        Doctor doc1 = entityManager.persist(new Doctor("Juan","Carlos", 34, "j.carlos@hospital.accwe"));
+        Doctor doc2 = entityManager.persist(new Doctor("Perla","Amalia", 24, "p.amalia@hospital.accwe"));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(repository.findAllSummaries()).extracting(PersonSummary::getId, PersonSummary::getFirstName, PersonSummary::getLastName)
+                .containsExactly(tuple(doc1.getId(), "Juan", "Carlos"), tuple(doc2.getId(), "Perla", "Amalia"));
+        assertThat(repository.findSummariesAfter(doc1.getId(), PageRequest.of(0, 10))).extracting(PersonSummary::getId)
+                .containsExactly(doc2.getId());
+    }
+
 }
@@ -0,0 +1,227 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.controllers.EncodedResponses;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.DoctorRepository;
+import com.example.demo.services.TableVersions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+class EncodedResponsesUnitTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final TableVersions tableVersions = new TableVersions();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    private static final long TTL_MILLIS = 600_000;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private EncodedResponses encodedResponses(TableVersions tableVersions, int maxEntries) {
+        return new EncodedResponses(Arrays.asList(new StringHttpMessageConverter(),
+                new MappingJackson2HttpMessageConverter(objectMapper), new MappingJackson2CborHttpMessageConverter(cborMapper)),
+                tableVersions, maxEntries, TTL_MILLIS, now::get);
+    }
+
+    private Optional<Room> load(Room room) {
+        loads.incrementAndGet();
+        return Optional.ofNullable(room);
+    }
+
+    @Test
+    void hit_returns_the_cached_bytes_without_loading() throws Exception {
+        EncodedResponses encodedResponses = encodedResponses(tableVersions, 10);
+        Room room = new Room("Dermatology");
+
+        byte[] first = encodedResponses.get(Room.class, "Dermatology", MediaType.APPLICATION_JSON, () -> load(room));
+        byte[] second = encodedResponses.get(Room.class, "Dermatology", MediaType.APPLICATION_JSON, () -> load(room));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(objectMapper.readTree(first).get("roomName").asText()).isEqualTo("Dermatology");
+    }
+
+    @Test
+    void write_to_the_table_encodes_again() throws Exception {
+        EncodedResponses encodedResponses = encodedResponses(tableVersions, 10);
+
+        encodedResponses.get(Doctor.class, 1L, MediaType.APPLICATION_JSON, () -> Optional.of(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe")));
+        tableVersions.bump(Doctor.class);
+        byte[] json = encodedResponses.get(Doctor.class, 1L, MediaType.APPLICATION_JSON, () -> Optional.of(new Doctor("Perla", "Amalia", 25, "p.amalia@hospital.accwe")));
+
+        assertThat(objectMapper.readTree(json).get("age").asInt()).isEqualTo(25);
+    }
+
+    @Test
+    void write_to_another_table_keeps_the_entry() {
+        EncodedResponses encodedResponses = encodedResponses(tableVersions, 10);
+        Room room = new Room("Dermatology");
+
+        encodedResponses.get(Room.class, "Dermatology", MediaType.APPLICATION_JSON, () -> load(room));
+        tableVersions.bump(Doctor.class);
+        encodedResponses.get(Room.class, "Dermatology", MediaType.APPLICATION_JSON, () -> load(room));
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void missing_entities_are_not_cached() {
+        EncodedResponses encodedResponses = encodedResponses(tableVersions, 10);
+
+        ResponseEntity<byte[]> response = encodedResponses.response(Room.class, "Oncology", null, () -> load(null));
+        encodedResponses.get(Room.class, "Oncology", MediaType.APPLICATION_JSON, () -> load(null));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(encodedResponses.size()).isZero();
+    }
+
+    @Test
+    void representations_are_negotiated_from_the_accept_header() {
+        EncodedResponses encodedResponses = encodedResponses(tableVersions, 10);
+
+        assertThat(encodedResponses.negotiate(null)).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(encodedResponses.negotiate("*/*")).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(encodedResponses.negotiate("application/cbor")).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(encodedResponses.negotiate("application/json;q=0.5, application/cbor")).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(encodedResponses.negotiate("text/html")).isNull();
+        assertThat(encodedResponses.response(Room.class, "Dermatology", "text/html", () -> load(new Room("Dermatology"))).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+    }
+
+    @Test
+    void each_representation_is_cached_apart() throws Exception {
+        EncodedResponses encodedResponses = encodedResponses(tableVersions, 10);
+        Room room = new Room("Dermatology");
+
+        ResponseEntity<byte[]> json = encodedResponses.response(Room.class, "Dermatology", "application/json", () -> load(room));
+        ResponseEntity<byte[]> cbor = encodedResponses.response(Room.class, "Dermatology", "application/cbor", () -> load(room));
+        encodedResponses.response(Room.class, "Dermatology", "application/cbor", () -> load(room));
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(encodedResponses.size()).isEqualTo(2);
+        assertThat(cbor.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+        assertThat(cbor.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT);
+        assertThat(cborMapper.readTree(cbor.getBody())).isEqualTo(objectMapper.readTree(json.getBody()));
+    }
+
+    @Test
+    void least_recently_used_entries_are_evicted() {
+        EncodedResponses encodedResponses = encodedResponses(tableVersions, 2);
+
+        for (String roomName : new String[] {"Dermatology", "Oncology", "Dermatology", "Cardiology", "Dermatology"}) {
+            encodedResponses.get(Room.class, roomName, MediaType.APPLICATION_JSON, () -> load(new Room(roomName)));
+        }
+
+        assertThat(encodedResponses.size()).isEqualTo(2);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    /**
+     * Rows changed by another instance or outside the application bump no version here.
+     */
+    @Test
+    void entries_older_than_the_time_to_live_are_encoded_again() throws Exception {
+        EncodedResponses encodedResponses = encodedResponses(tableVersions, 10);
+
+        encodedResponses.get(Doctor.class, 1L, MediaType.APPLICATION_JSON, () -> Optional.of(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe")));
+        now.addAndGet(TTL_MILLIS - 1);
+        byte[] cached = encodedResponses.get(Doctor.class, 1L, MediaType.APPLICATION_JSON, () -> Optional.of(new Doctor("Perla", "Amalia", 25, "p.amalia@hospital.accwe")));
+        now.addAndGet(1);
+        byte[] expired = encodedResponses.get(Doctor.class, 1L, MediaType.APPLICATION_JSON, () -> Optional.of(new Doctor("Perla", "Amalia", 25, "p.amalia@hospital.accwe")));
+
+        assertThat(objectMapper.readTree(cached).get("age").asInt()).isEqualTo(24);
+        assertThat(objectMapper.readTree(expired).get("age").asInt()).isEqualTo(25);
+    }
+
+    @Test
+    void without_table_versions_every_request_is_encoded() {
+        EncodedResponses encodedResponses = encodedResponses(null, 10);
+        Room room = new Room("Dermatology");
+
+        ResponseEntity<byte[]> response = encodedResponses.response(Room.class, "Dermatology", null, () -> load(room));
+        encodedResponses.get(Room.class, "Dermatology", MediaType.APPLICATION_JSON, () -> load(room));
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(encodedResponses.size()).isZero();
+    }
+}
+
+/**
+ * Reads a doctor through the application, where commits bump the table versions.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class EncodedResponsesInvalidationUnitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @AfterEach
+    void cleanup() {
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void should_answer_from_the_encoded_response_until_the_doctor_changes() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Doctor doctor = doctorRepository.save(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+
+        mockMvc.perform(get("/api/doctors/" + doctor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.age").value(24));
+
+        statistics.clear();
+        mockMvc.perform(get("/api/doctors/" + doctor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.age").value(24));
+        assertThat(statistics.getEntityLoadCount() + statistics.getSecondLevelCacheHitCount()).isZero();
+
+        doctor.setAge(25);
+        doctorRepository.save(doctor);
+        mockMvc.perform(get("/api/doctors/" + doctor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.age").value(25));
+    }
+}
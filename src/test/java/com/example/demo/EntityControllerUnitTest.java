@@ -2,6 +2,9 @@
 package com.example.demo;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 
@@ -13,7 +16,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import java.time.LocalDateTime;
@@ -23,6 +28,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.util.LinkedMultiValueMap;
@@ -31,6 +40,9 @@ import org.springframework.util.MultiValueMap;
 import com.example.demo.controllers.*;
 import com.example.demo.repositories.*;
 import com.example.demo.entities.*;
+import com.example.demo.dto.ImportReport;
+import com.example.demo.services.BulkDeleteService;
+import com.example.demo.services.ReferenceDataImportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 
@@ -40,6 +52,12 @@ class DoctorControllerUnitTest {
     @MockBean
     private DoctorRepository doctorRepository;
 
+    @MockBean
+    private ReferenceDataImportService referenceDataImportService;
+
+    @MockBean
+    private BulkDeleteService bulkDeleteService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -60,6 +78,26 @@ class DoctorControllerUnitTest {
                 .andExpect(status().isCreated());
     }
 
+    /**
+     * Tests the creation of many doctors via the "POST /api/doctors/batch" endpoint, and that an empty list is rejected.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldCreateDoctorsInBatch() throws Exception {
+        List<Doctor> doctors = Arrays.asList(new Doctor("Francisco", "Munoz", 30, "f.munoz@email.com"), new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+        when(referenceDataImportService.persistAll(anyList())).thenReturn(new ImportReport(2, 0));
+
+        mockMvc.perform(post("/api/doctors/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(doctors)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(2));
+
+        mockMvc.perform(post("/api/doctors/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Tests the successful retrieval of all doctors (the two created in this case) from the  "GET /api/doctors" endpoint.
      *
@@ -97,6 +135,22 @@ class DoctorControllerUnitTest {
      *
      * @throws Exception If there are errors during test execution
      */
+    @Test
+    void shouldGetDoctorSummaries() throws Exception {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("id", 4L);
+        summary.put("firstName", "Perla");
+        summary.put("lastName", "Amalia");
+
+        when(doctorRepository.findAllSummaries()).thenReturn(Collections.singletonList(
+                new SpelAwareProxyProjectionFactory().createProjection(PersonSummary.class, summary)));
+        mockMvc.perform(get("/api/doctors").param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andExpect(jsonPath("$[0].firstName").value("Perla"))
+                .andExpect(jsonPath("$[0].email").doesNotExist());
+    }
+
     @Test
     void shouldGetDoctorById() throws Exception {
         Doctor doctor = new Doctor("Francisco", "Munoz", 30, "f.munoz@email.com");
@@ -144,7 +198,7 @@ class DoctorControllerUnitTest {
         assertThat(opt.get().getId()).isEqualTo(doctor.getId());
         assertThat(doctor.getId()).isEqualTo(1);
 
-        when(doctorRepository.findById(doctor.getId())).thenReturn(opt);
+        when(bulkDeleteService.deleteDoctor(doctor.getId())).thenReturn(1);
         mockMvc.perform(delete("/api/doctors/" + doctor.getId()))
                 .andExpect(status().isOk());
     }
@@ -163,6 +217,20 @@ class DoctorControllerUnitTest {
                 .andExpect(status().isNotFound());
     }
 
+    /**
+     * Tests that a 409 (Conflict) response is returned when deleting a doctor that appointments
+     * still reference from the "DELETE /api/doctors/{id}"
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldNotDeleteDoctorStillBooked() throws Exception {
+        when(bulkDeleteService.deleteDoctor(1)).thenThrow(new DataIntegrityViolationException("doctor_id"));
+
+        mockMvc.perform(delete("/api/doctors/1"))
+                .andExpect(status().isConflict());
+    }
+
     /**
      * Tests the successful deletion of all doctors via the "DELETE /api/doctors/" endpoint.
      *
@@ -172,6 +240,7 @@ class DoctorControllerUnitTest {
     void shouldDeleteAllDoctors() throws Exception {
         mockMvc.perform(delete("/api/doctors/"))
                 .andExpect(status().isOk());
+        verify(bulkDeleteService).deleteAllDoctors();
     }
 }
 
@@ -182,6 +251,12 @@ class PatientControllerUnitTest {
     @MockBean
     private PatientRepository patientRepository;
 
+    @MockBean
+    private ReferenceDataImportService referenceDataImportService;
+
+    @MockBean
+    private BulkDeleteService bulkDeleteService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -189,6 +264,33 @@ class PatientControllerUnitTest {
     private ObjectMapper objectMapper;
 
 
+    /**
+     * Tests that the patients of "POST /api/patients/batch" are created without the ids received,
+     * and that a list with null items is rejected.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldCreatePatientsInBatch() throws Exception {
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        patient.setId(7);
+        when(referenceDataImportService.persistAll(anyList())).thenAnswer(invocation -> {
+            List<Patient> patients = invocation.getArgument(0);
+            assertThat(patients).extracting(Patient::getId).containsExactly(0L);
+            assertThat(patients).extracting(Patient::getEmail).containsExactly("j.olaya@email.com");
+            return new ImportReport(patients.size(), 0);
+        });
+
+        mockMvc.perform(post("/api/patients/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Collections.singletonList(patient))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(1));
+
+        mockMvc.perform(post("/api/patients/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[null]"))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Tests the successful creation of a new patient via the "POST /api/patient" endpoint.
      *
@@ -287,7 +389,7 @@ class PatientControllerUnitTest {
         assertThat(opt.get().getId()).isEqualTo(patient.getId());
         assertThat(patient.getId()).isEqualTo(1);
 
-        when(patientRepository.findById(patient.getId())).thenReturn(opt);
+        when(bulkDeleteService.deletePatient(patient.getId())).thenReturn(1);
         mockMvc.perform(delete("/api/patients/" + patient.getId()))
                 .andExpect(status().isOk());
     }
@@ -315,6 +417,7 @@ class PatientControllerUnitTest {
     void shouldDeleteAllPatients() throws Exception {
         mockMvc.perform(delete("/api/patients/"))
                 .andExpect(status().isOk());
+        verify(bulkDeleteService).deleteAllPatients();
     }
 }
 
@@ -324,12 +427,39 @@ class RoomControllerUnitTest {
     @MockBean
     private RoomRepository roomRepository;
 
+    @MockBean
+    private ReferenceDataImportService referenceDataImportService;
+
+    @MockBean
+    private BulkDeleteService bulkDeleteService;
+
     @Autowired
     private MockMvc mockMvc;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    /**
+     * Tests the creation of many rooms via the "POST /api/rooms/batch" endpoint, and that rooms without name are rejected.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldCreateRoomsInBatch() throws Exception {
+        when(referenceDataImportService.createRooms(anyList())).thenReturn(new ImportReport(1, 1));
+
+        mockMvc.perform(post("/api/rooms/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"roomName\":\"Dermatology\"},{\"roomName\":\"Dermatology\"}]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.skipped").value(1));
+
+        mockMvc.perform(post("/api/rooms/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"roomName\":\"Dermatology\"},{}]"))
+                .andExpect(status().isBadRequest());
+        verify(referenceDataImportService, never()).persistAll(anyList());
+    }
+
     /**
      * Tests the successful creation of a new room via the "POST /api/room" endpoint.
      *
@@ -363,6 +493,45 @@ class RoomControllerUnitTest {
                 .andExpect(status().isOk());
     }
 
+    /**
+     * Tests that a full page of rooms returns the cursor of the next one, which is accepted back.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldGetPagesOfRooms() throws Exception {
+        List<Room> rooms = new ArrayList<Room>();
+        rooms.add(new Room("Room 1"));
+        rooms.add(new Room("Room 2"));
+        rooms.add(new Room("Room 3"));
+
+        when(roomRepository.findByRoomNameGreaterThanOrderByRoomNameAsc(any(String.class), any(Pageable.class))).thenReturn(rooms);
+        String cursor = mockMvc.perform(get("/api/rooms").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        when(roomRepository.findByRoomNameGreaterThanOrderByRoomNameAsc("Room 2", PageRequest.of(0, 3))).thenReturn(rooms.subList(2, 3));
+        mockMvc.perform(get("/api/rooms").param("after", cursor).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].roomName").value("Room 3"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    /**
+     * Tests that forged cursors and out of range limits are rejected.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldNotGetPageOfRoomsWithInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/rooms").param("after", "Room 2"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/rooms").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Tests that a 204 (No Content) response is returned when no rooms exist by getting all by "GET /api/rooms" endpoint.
      *
@@ -424,7 +593,7 @@ class RoomControllerUnitTest {
         assertThat(opt.get().getRoomName()).isEqualTo(room.getRoomName());
         assertThat(room.getRoomName()).isEqualTo("Room 1");
 
-        when(roomRepository.findByRoomName(room.getRoomName())).thenReturn(opt);
+        when(bulkDeleteService.deleteRoom(room.getRoomName())).thenReturn(1);
         mockMvc.perform(delete("/api/rooms/" + room.getRoomName()))
                 .andExpect(status().isOk());
     }
@@ -452,6 +621,21 @@ class RoomControllerUnitTest {
     void shouldDeleteAllRooms() throws Exception {
         mockMvc.perform(delete("/api/rooms/"))
                 .andExpect(status().isOk());
+        verify(bulkDeleteService).deleteAllRooms();
+    }
+
+    /**
+     * Tests that a 409 (Conflict) response is returned by the "DELETE /api/rooms/" endpoint
+     * while appointments still reference rooms.
+     *
+     * @throws Exception If there are errors during test execution
+     */
+    @Test
+    void shouldNotDeleteAllRoomsStillBooked() throws Exception {
+        when(bulkDeleteService.deleteAllRooms()).thenThrow(new DataIntegrityViolationException("room_id"));
+
+        mockMvc.perform(delete("/api/rooms/"))
+                .andExpect(status().isConflict());
     }
 
 }
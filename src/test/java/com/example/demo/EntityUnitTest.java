@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -368,4 +369,113 @@ class EntityUnitTest {
         assertThat(a1.overlaps(a2)).isFalse();
     }
 
+    /**
+     * Tests that two appointments overlap when
+     * B starts before A starts and B finishes after A finishes.
+     */
+    @Test
+    void appointment_overlaps_when_b_contains_a() {
+        LocalDateTime aStartsAt = LocalDateTime.parse("21:30 24/04/2023", formatter);
+        LocalDateTime aFinishesAt = LocalDateTime.parse("22:30 24/04/2023", formatter);
+        LocalDateTime bStartsAt = LocalDateTime.parse("20:30 24/04/2023", formatter);
+        LocalDateTime bFinishesAt = LocalDateTime.parse("23:30 24/04/2023", formatter);
+
+        a1 = new Appointment(p1, d1, r1, aStartsAt, aFinishesAt);
+        a2 = new Appointment(p1, d1, r1, bStartsAt, bFinishesAt);
+
+        assertThat(a1.overlaps(a2)).isTrue();
+        assertThat(a2.overlaps(a1)).isTrue();
+    }
+
+    /**
+     * Tests that appointments at the same time in different rooms conflict when they share the doctor or the patient.
+     */
+    @Test
+    void appointment_conflicts_on_same_doctor_or_patient() {
+        LocalDateTime startsAt = LocalDateTime.parse("21:30 24/04/2023", formatter);
+        Room r2 = new Room("Another room");
+        Doctor d2 = new Doctor("Lucia", "Munoz", 30, "l.munoz@doctor.com");
+        Patient p2 = new Patient("Fran", "Munoz", 30, "f.munoz@patient.com");
+        d1.setId(1);
+        d2.setId(2);
+        p1.setId(1);
+        p2.setId(2);
+
+        a1 = new Appointment(p1, d1, r1, startsAt, startsAt.plusHours(1));
+
+        assertThat(a1.conflictsWith(new Appointment(p2, d1, r2, startsAt, startsAt.plusHours(1)))).isTrue();
+        assertThat(a1.conflictsWith(new Appointment(p1, d2, r2, startsAt, startsAt.plusHours(1)))).isTrue();
+        assertThat(a1.conflictsWith(new Appointment(p2, d2, r1, startsAt, startsAt.plusHours(1)))).isTrue();
+        assertThat(a1.conflictsWith(new Appointment(p2, d2, r2, startsAt, startsAt.plusHours(1)))).isFalse();
+        assertThat(a1.conflictsWith(new Appointment(p1, d1, r1, startsAt.plusHours(1), startsAt.plusHours(2)))).isFalse();
+    }
+
+    /**
+     * Tests that appointments must start before they finish and last at most MAX_DURATION.
+     */
+    @Test
+    void appointment_interval_validation() {
+        LocalDateTime startsAt = LocalDateTime.parse("09:00 24/04/2023", formatter);
+
+        assertThat(new Appointment(p1, d1, r1, startsAt, startsAt.plusHours(1)).hasValidInterval()).isTrue();
+        assertThat(new Appointment(p1, d1, r1, startsAt, startsAt.plus(Appointment.MAX_DURATION)).hasValidInterval()).isTrue();
+        assertThat(new Appointment(p1, d1, r1, startsAt, startsAt.plus(Appointment.MAX_DURATION).plusMinutes(1)).hasValidInterval()).isFalse();
+        assertThat(new Appointment(p1, d1, r1, startsAt, startsAt).hasValidInterval()).isFalse();
+        assertThat(new Appointment(p1, d1, r1, startsAt, null).hasValidInterval()).isFalse();
+    }
+
+    /**
+     * Tests the rule of a series: occurrences must not overlap each other and the rule must repeat.
+     */
+    @Test
+    void series_rule_validation() {
+        LocalDateTime startsAt = LocalDateTime.parse("09:00 24/04/2023", formatter);
+
+        AppointmentSeries series = new AppointmentSeries(p1, d1, r1, startsAt, startsAt.plusHours(1), 7, 10);
+        assertThat(series.hasValidRule()).isTrue();
+        assertThat(series.getLastFinishesAt()).isEqualTo(startsAt.plusHours(1).plusDays(63));
+        assertThat(series.occurrenceStartsAt(2)).isEqualTo(startsAt.plusDays(14));
+
+        assertThat(new AppointmentSeries(p1, d1, r1, startsAt, startsAt.plusDays(2), 1, 10).hasValidRule()).isFalse();
+        assertThat(new AppointmentSeries(p1, d1, r1, startsAt, startsAt.plusHours(1), 0, 10).hasValidRule()).isFalse();
+        assertThat(new AppointmentSeries(p1, d1, r1, startsAt, startsAt.plusHours(1), 7, 0).hasValidRule()).isFalse();
+        assertThat(new AppointmentSeries(p1, d1, r1, startsAt, startsAt, 7, 10).hasValidRule()).isFalse();
+    }
+
+    /**
+     * Tests the arithmetic overlap checks of series against expanding every occurrence, on random seeded series.
+     */
+    @Test
+    void series_overlaps_match_expanded_occurrences() {
+        Random random = new Random(11);
+        LocalDateTime origin = LocalDateTime.parse("00:00 01/01/2023", formatter);
+
+        for (int run = 0; run < 500; run++) {
+            AppointmentSeries a = randomSeries(random, origin);
+            AppointmentSeries b = randomSeries(random, origin);
+            LocalDateTime startsAt = origin.plusMinutes(15L * random.nextInt(4 * 24 * 60));
+            LocalDateTime finishesAt = startsAt.plusMinutes(15L * (1 + random.nextInt(16)));
+
+            boolean expandedOverlap = false;
+            boolean expandedSeriesOverlap = false;
+            for (int i = 0; i < a.getOccurrences(); i++) {
+                Appointment occurrence = new Appointment(null, null, r1, a.occurrenceStartsAt(i), a.occurrenceFinishesAt(i));
+                expandedOverlap |= occurrence.overlapsInTime(new Appointment(null, null, r1, startsAt, finishesAt));
+                for (int j = 0; j < b.getOccurrences(); j++) {
+                    expandedSeriesOverlap |= occurrence.overlapsInTime(new Appointment(null, null, r1, b.occurrenceStartsAt(j), b.occurrenceFinishesAt(j)));
+                }
+            }
+
+            assertThat(a.overlapsInTime(startsAt, finishesAt)).isEqualTo(expandedOverlap);
+            assertThat(a.overlapsInTime(b)).isEqualTo(expandedSeriesOverlap);
+            assertThat(b.overlapsInTime(a)).isEqualTo(expandedSeriesOverlap);
+        }
+    }
+
+    private AppointmentSeries randomSeries(Random random, LocalDateTime origin) {
+        LocalDateTime startsAt = origin.plusMinutes(15L * random.nextInt(2 * 24 * 60));
+        int intervalDays = 1 + random.nextInt(14);
+        return new AppointmentSeries(p1, d1, r1, startsAt, startsAt.plusMinutes(15L * (1 + random.nextInt(16))), intervalDays, 1 + random.nextInt(40));
+    }
+
 }
@@ -0,0 +1,92 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+
+/**
+ * Counts the statements of inserts with ids reserved per block, and checks that two applications
+ * sharing the database never generate the same id.
+ */
+@SpringBootTest
+class PooledIdGeneratorUnitTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @AfterEach
+    void cleanup() {
+        patientRepository.deleteAllInBatch();
+    }
+
+    private static List<Patient> patients(int count, String prefix) {
+        List<Patient> patients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            patients.add(new Patient("Jose Luis", "Olaya", 37, prefix + i + "@email.com"));
+        }
+        return patients;
+    }
+
+    @Test
+    void inserts_read_the_sequence_once_per_block_and_are_batched() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<Patient> saved = patientRepository.saveAll(patients(120, "j.olaya"));
+
+        // 3 blocks of 50 ids and 3 batches of 50 inserts, instead of 120 of each.
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+        assertThat(saved.stream().map(Patient::getId).distinct().count()).isEqualTo(120);
+    }
+
+    @Test
+    void instances_sharing_the_database_never_generate_the_same_id() {
+        ConfigurableApplicationContext other = new SpringApplicationBuilder(TechhubApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.hibernate.ddl-auto=none",
+                     // Its cache manager would be shared with this application's one.
+                     "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                     "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                     "--logging.level.root=warn");
+        try {
+            PatientRepository otherPatientRepository = other.getBean(PatientRepository.class);
+            Set<Long> ids = new HashSet<>();
+            int saved = 0;
+            for (int round = 0; round < 20; round++) {
+                for (Patient patient : patientRepository.saveAll(patients(9, "a" + round + "."))) {
+                    ids.add(patient.getId());
+                }
+                for (Patient patient : otherPatientRepository.saveAll(patients(4, "b" + round + "."))) {
+                    ids.add(patient.getId());
+                }
+                saved += 13;
+            }
+
+            assertThat(ids).hasSize(saved);
+            assertThat(patientRepository.count()).isEqualTo(saved);
+        } finally {
+            other.close();
+        }
+    }
+}
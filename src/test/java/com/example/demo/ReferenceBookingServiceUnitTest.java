@@ -0,0 +1,136 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+import com.example.demo.services.AppointmentBookingService;
+import com.example.demo.services.BookingLocks;
+import com.example.demo.services.Conflict;
+import com.example.demo.services.ReferenceBookingService;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ReferenceBookingService.class, AppointmentBookingService.class, BookingLocks.class})
+class ReferenceBookingServiceUnitTest {
+
+    private static final LocalDateTime STARTS_AT = LocalDateTime.of(2023, 4, 24, 19, 30);
+
+    @Autowired
+    private ReferenceBookingService referenceBookingService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private long doctorId;
+
+    private long patientId;
+
+    @BeforeEach
+    void setup() {
+        Doctor doctor = new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe");
+        Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya@email.com");
+        entityManager.persist(doctor);
+        entityManager.persist(patient);
+        entityManager.persist(new Room("Dermatology"));
+        entityManager.flush();
+        entityManager.clear();
+        doctorId = doctor.getId();
+        patientId = patient.getId();
+    }
+
+    /**
+     * Appointment whose room, doctor and patient carry only their keys, as received by POST /api/bookings.
+     */
+    private static Appointment booking(String roomName, Long doctorId, Long patientId, LocalDateTime startsAt) {
+        Doctor doctor = null;
+        if (doctorId != null) {
+            doctor = new Doctor();
+            doctor.setId(doctorId);
+        }
+        Patient patient = null;
+        if (patientId != null) {
+            patient = new Patient();
+            patient.setId(patientId);
+        }
+        return new Appointment(patient, doctor, new Room(roomName), startsAt, startsAt.plusHours(1));
+    }
+
+    /**
+     * Tests that the booking inserts the appointment alone, without loading, updating nor inserting
+     * its room, doctor and patient.
+     */
+    @Test
+    void should_insert_only_the_appointment() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Appointment appointment = booking("Dermatology", doctorId, patientId, STARTS_AT);
+        assertThat(referenceBookingService.book(appointment)).isEqualTo(Conflict.NONE);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(Hibernate.isInitialized(appointment.getRoom())).isFalse();
+        assertThat(Hibernate.isInitialized(appointment.getDoctor())).isFalse();
+        assertThat(Hibernate.isInitialized(appointment.getPatient())).isFalse();
+
+        entityManager.clear();
+        Appointment stored = appointmentRepository.findById(appointment.getId()).get();
+        assertThat(stored.getRoom().getRoomName()).isEqualTo("Dermatology");
+        assertThat(stored.getDoctor().getFirstName()).isEqualTo("Perla");
+        assertThat(stored.getPatient().getFirstName()).isEqualTo("Jose Luis");
+    }
+
+    /**
+     * Tests that overlapping bookings are rejected like with AppointmentBookingService.
+     */
+    @Test
+    void should_reject_overlapping_bookings() {
+        assertThat(referenceBookingService.book(booking("Dermatology", null, patientId, STARTS_AT))).isEqualTo(Conflict.NONE);
+        entityManager.flush();
+
+        assertThat(referenceBookingService.book(booking("Dermatology", doctorId, null, STARTS_AT.plusMinutes(30)))).isEqualTo(Conflict.ROOM);
+        assertThat(appointmentRepository.count()).isEqualTo(1);
+    }
+
+    /**
+     * Tests that unknown rooms, doctors and patients are neither booked nor created.
+     */
+    @Test
+    void should_not_book_unknown_references() {
+        assertThatThrownBy(() -> referenceBookingService.book(booking("Oncology", doctorId, patientId, STARTS_AT)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> referenceBookingService.book(booking("Dermatology", doctorId + patientId, patientId, STARTS_AT)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> referenceBookingService.book(booking("Dermatology", doctorId, doctorId + patientId, STARTS_AT)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(appointmentRepository.count()).isZero();
+    }
+}
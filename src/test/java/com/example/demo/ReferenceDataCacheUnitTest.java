@@ -0,0 +1,97 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+
+/**
+ * Counts the SQL statements of repeated reads of rooms and doctors, which the second-level
+ * and query caches should answer after the first one. The cache of encoded responses, which
+ * would answer them before Hibernate, is disabled.
+ */
+@SpringBootTest(properties = "accwe.response-cache.max-entries=0")
+@AutoConfigureMockMvc
+class ReferenceDataCacheUnitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanup() {
+        doctorRepository.deleteAll();
+        roomRepository.deleteAll();
+    }
+
+    @Test
+    void should_read_a_doctor_from_the_cache_after_saving_it() throws Exception {
+        Doctor doctor = doctorRepository.save(new Doctor("Perla", "Amalia", 24, "p.amalia@hospital.accwe"));
+
+        statistics.clear();
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/doctors/" + doctor.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.email").value("p.amalia@hospital.accwe"));
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(Doctor.class.getName()).getHitCount()).isEqualTo(3);
+    }
+
+    @Test
+    void should_read_a_room_once_then_from_the_query_cache() throws Exception {
+        roomRepository.save(new Room("Dermatology"));
+
+        statistics.clear();
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/rooms/Dermatology"))
+                    .andExpect(status().isOk());
+        }
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(2);
+
+        // A new room invalidates the cached query results of the table.
+        roomRepository.save(new Room("Oncology"));
+        statistics.clear();
+        mockMvc.perform(get("/api/rooms/Dermatology"))
+                .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        mockMvc.perform(get("/api/cache/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.regions[?(@.name == 'com.example.demo.entities.Room')]").exists())
+                .andExpect(jsonPath("$.queries.misses").value(1))
+                .andExpect(jsonPath("$.statements").value(1));
+    }
+}
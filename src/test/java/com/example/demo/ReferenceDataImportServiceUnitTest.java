@@ -0,0 +1,123 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+
+import com.example.demo.dto.ImportReport;
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+import com.example.demo.services.ReferenceDataImportService;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(ReferenceDataImportService.class)
+class ReferenceDataImportServiceUnitTest {
+
+    private static final int PATIENTS = 1000;
+
+    @Autowired
+    private ReferenceDataImportService referenceDataImportService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @SpyBean
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Tests that 1000 patients are inserted in batches of 50 with ids reserved per block, leaving
+     * the persistence context and the second-level cache empty.
+     */
+    @Test
+    void should_insert_patients_in_batches() {
+        List<Patient> patients = new ArrayList<>(PATIENTS);
+        for (int i = 0; i < PATIENTS; i++) {
+            patients.add(new Patient("Jose Luis", "Olaya", 37, "j.olaya" + i + "@email.com"));
+        }
+
+        statistics.clear();
+        ImportReport report = referenceDataImportService.persistAll(patients);
+
+        assertThat(report.getCreated()).isEqualTo(PATIENTS);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(PATIENTS);
+        // 20 batches of inserts and 20 blocks of ids, instead of 1000 of each.
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(40);
+        assertThat(statistics.getSecondLevelCachePutCount()).isZero();
+        assertThat(entityManager.contains(patients.get(0))).isFalse();
+        assertThat(patientRepository.count()).isEqualTo(PATIENTS);
+    }
+
+    /**
+     * Tests that repeated and stored room names are skipped, with one query for the stored ones.
+     */
+    @Test
+    void should_create_only_the_new_rooms() {
+        roomRepository.save(new Room("Dermatology"));
+        entityManager.flush();
+
+        statistics.clear();
+        ImportReport report = referenceDataImportService.createRooms(Arrays.asList(
+                new Room("Oncology"), new Room("Dermatology"), new Room("Cardiology"), new Room("Oncology")));
+
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getSkipped()).isEqualTo(2);
+        entityManager.flush();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+        assertThat(roomRepository.findAll()).extracting(Room::getRoomName)
+                .containsExactlyInAnyOrder("Dermatology", "Oncology", "Cardiology");
+    }
+
+    /**
+     * Tests that room names differing only in case or trailing spaces are skipped, like the
+     * case-insensitive unique key of MySQL would require, instead of failing the whole import.
+     */
+    @Test
+    void should_skip_room_names_differing_in_case() {
+        roomRepository.save(new Room("Dermatology"));
+        entityManager.flush();
+        // H2 compares case-sensitively: answer the lookup the way MySQL would.
+        doReturn(Collections.singletonList("Dermatology")).when(roomRepository).findExistingNames(any());
+
+        ImportReport report = referenceDataImportService.createRooms(Arrays.asList(
+                new Room("dermatology"), new Room("Oncology"), new Room("ONCOLOGY "), new Room("oncology")));
+
+        assertThat(report.getCreated()).isEqualTo(1);
+        assertThat(report.getSkipped()).isEqualTo(3);
+        entityManager.flush();
+        assertThat(roomRepository.findAll()).extracting(Room::getRoomName)
+                .containsExactlyInAnyOrder("Dermatology", "Oncology");
+    }
+}
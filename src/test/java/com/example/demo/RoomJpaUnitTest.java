@@ -2,11 +2,13 @@ package com.example.demo;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
@@ -99,5 +101,18 @@ class RoomJpaUnitTest {
         repository.deleteAll();
         assertThat(repository.findAll()).isEmpty();
     }
-    
+
+    @Test
+    void should_page_rooms_by_name(){
+        entityManager.persist(new Room("Operations"));
+        entityManager.persist(new Room("Dermatology"));
+        entityManager.persist(new Room("Emergencies"));
+
+        List<Room> first = repository.findByRoomNameGreaterThanOrderByRoomNameAsc("", PageRequest.of(0, 2));
+        assertThat(first).extracting(Room::getRoomName).containsExactly("Dermatology", "Emergencies");
+
+        List<Room> second = repository.findByRoomNameGreaterThanOrderByRoomNameAsc("Emergencies", PageRequest.of(0, 2));
+        assertThat(second).extracting(Room::getRoomName).containsExactly("Operations");
+    }
+
 }
@@ -0,0 +1,80 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+import com.example.demo.services.SlotOccupancy;
+import com.example.demo.services.SlotOccupancyConfiguration;
+
+/**
+ * Checks that the slot occupancy follows the committed writes. Runs without the test transaction,
+ * since the bitsets are only updated after commit.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(SlotOccupancyConfiguration.class)
+@TestPropertySource(properties = "accwe.occupancy.enabled=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SlotOccupancyJpaUnitTest {
+
+    @Autowired
+    private SlotOccupancy slotOccupancy;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final LocalDateTime startsAt = LocalDateTime.of(2023, 4, 24, 19, 30);
+
+    @AfterEach
+    void cleanup() {
+        appointmentRepository.deleteAll();
+        roomRepository.deleteAll();
+        slotOccupancy.clear();
+    }
+
+    @Test
+    void should_follow_committed_inserts_and_deletes() {
+        assertThat(slotOccupancy.isFree("Dermatology", startsAt, startsAt.plusHours(1))).isTrue();
+
+        Appointment appointment = appointmentRepository.save(new Appointment(null, null, new Room("Dermatology"), startsAt, startsAt.plusHours(1)));
+        assertThat(slotOccupancy.isFree("Dermatology", startsAt.plusMinutes(30), startsAt.plusHours(2))).isFalse();
+
+        appointmentRepository.deleteById(appointment.getId());
+        assertThat(slotOccupancy.isFree("Dermatology", startsAt, startsAt.plusHours(1))).isTrue();
+    }
+
+    @Test
+    void should_ignore_rolled_back_inserts() {
+        assertThat(slotOccupancy.isFree("Dermatology", startsAt, startsAt.plusHours(1))).isTrue();
+
+        transactionTemplate.execute(status -> {
+            appointmentRepository.save(new Appointment(null, null, new Room("Dermatology"), startsAt, startsAt.plusHours(1)));
+            appointmentRepository.flush();
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(slotOccupancy.isFree("Dermatology", startsAt, startsAt.plusHours(1))).isTrue();
+    }
+}
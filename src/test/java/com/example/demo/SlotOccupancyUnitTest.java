@@ -0,0 +1,183 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.dto.FreeSlot;
+import com.example.demo.repositories.BookedInterval;
+import com.example.demo.services.AvailabilityService;
+import com.example.demo.services.SlotOccupancy;
+
+class SlotOccupancyUnitTest {
+
+    private final LocalDateTime origin = LocalDateTime.of(2023, 4, 24, 0, 0);
+
+    private final List<BookedInterval> booked = new ArrayList<>();
+
+    private int loads;
+
+    private SlotOccupancy slotOccupancy;
+
+    @BeforeEach
+    void setup() {
+        booked.clear();
+        loads = 0;
+        slotOccupancy = new SlotOccupancy(5, (roomName, from, to) -> {
+            loads++;
+            return booked.stream()
+                    .filter(interval -> interval.getStartsAt().isBefore(to) && interval.getFinishesAt().isAfter(from))
+                    .sorted(Comparator.comparing(BookedInterval::getStartsAt))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private static BookedInterval interval(LocalDateTime startsAt, LocalDateTime finishesAt) {
+        return new BookedInterval() {
+            public String getRoomName() { return "Dermatology"; }
+            public Long getDoctorId() { return null; }
+            public Long getPatientId() { return null; }
+            public LocalDateTime getStartsAt() { return startsAt; }
+            public LocalDateTime getFinishesAt() { return finishesAt; }
+        };
+    }
+
+    private LocalDateTime at(int minutes) {
+        return origin.plusMinutes(minutes);
+    }
+
+    private static List<String> format(List<FreeSlot> slots) {
+        return slots.stream().map(slot -> slot.getStartsAt() + "/" + slot.getFinishesAt()).collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that on-grid bookings are answered from the bits, with a single load per day.
+     */
+    @Test
+    void should_answer_on_grid_checks_from_the_bits() {
+        booked.add(interval(at(600), at(660)));
+
+        assertThat(slotOccupancy.isFree("Dermatology", at(630), at(700))).isFalse();
+        assertThat(slotOccupancy.isFree("Dermatology", at(660), at(720))).isTrue();
+        assertThat(slotOccupancy.isFree("Dermatology", at(540), at(600))).isTrue();
+        assertThat(loads).isEqualTo(1);
+    }
+
+    /**
+     * Tests that off-grid checks touching a busy slot, and days holding off-grid bookings, are left to the database.
+     */
+    @Test
+    void should_fall_back_off_the_grid() {
+        booked.add(interval(at(600), at(660)));
+        booked.add(interval(at(24 * 60 + 600).plusMinutes(2), at(24 * 60 + 660)));
+
+        assertThat(slotOccupancy.isFree("Dermatology", at(657), at(700))).isNull();
+        assertThat(slotOccupancy.isFree("Dermatology", at(700).plusSeconds(1), at(720))).isTrue();
+        assertThat(slotOccupancy.isFree("Dermatology", at(24 * 60 + 600), at(24 * 60 + 605))).isNull();
+        assertThat(slotOccupancy.freeSlots("Dermatology", at(24 * 60), at(48 * 60), Duration.ofMinutes(30), 10)).isNull();
+        assertThat(slotOccupancy.freeSlots("Dermatology", at(1), at(60), Duration.ofMinutes(30), 10)).isNull();
+    }
+
+    /**
+     * Tests that committed bookings and deletions update the loaded days without reloading them.
+     */
+    @Test
+    void should_apply_bookings_and_deletions() {
+        assertThat(slotOccupancy.isFree("Dermatology", at(600), at(660))).isTrue();
+
+        slotOccupancy.booked("Dermatology", at(600), at(660));
+        assertThat(slotOccupancy.isFree("Dermatology", at(655), at(720))).isFalse();
+
+        slotOccupancy.released("Dermatology", at(600), at(660));
+        assertThat(slotOccupancy.isFree("Dermatology", at(600), at(660))).isTrue();
+        assertThat(loads).isEqualTo(1);
+        assertThat(slotOccupancy.footprint().getDays()).isEqualTo(1);
+        assertThat(slotOccupancy.footprint().getBitsetBytes()).isEqualTo(5 * Long.BYTES);
+    }
+
+    /**
+     * Tests that names MySQL takes for the same room share their days.
+     */
+    @Test
+    void should_share_the_days_of_names_differing_in_case() {
+        assertThat(slotOccupancy.isFree("Dermatology", at(600), at(660))).isTrue();
+
+        slotOccupancy.booked("dermatology ", at(600), at(660));
+        assertThat(slotOccupancy.isFree("DERMATOLOGY", at(630), at(700))).isFalse();
+        assertThat(loads).isEqualTo(1);
+        assertThat(slotOccupancy.footprint().getRooms()).isEqualTo(1);
+    }
+
+    /**
+     * Tests that only the most recently used days of a room are kept, and that evicted rooms are dropped.
+     */
+    @Test
+    void should_keep_the_most_recently_used_days() {
+        slotOccupancy = new SlotOccupancy(5, 31, (roomName, from, to) -> {
+            loads++;
+            return new ArrayList<>();
+        });
+        for (int day = 0; day < 40; day++) {
+            slotOccupancy.isFree("Dermatology", at(day * 24 * 60 + 600), at(day * 24 * 60 + 660));
+        }
+        assertThat(slotOccupancy.footprint().getDays()).isEqualTo(31);
+
+        slotOccupancy.isFree("Dermatology", at(39 * 24 * 60), at(39 * 24 * 60 + 60));
+        assertThat(loads).isEqualTo(40);
+        slotOccupancy.isFree("Dermatology", at(600), at(660));
+        assertThat(loads).isEqualTo(41);
+
+        slotOccupancy.evict("DERMATOLOGY");
+        assertThat(slotOccupancy.footprint().getRooms()).isZero();
+    }
+
+    /**
+     * Tests that bookings across midnight mark both days.
+     */
+    @Test
+    void should_mark_bookings_across_midnight() {
+        booked.add(interval(at(23 * 60), at(25 * 60)));
+
+        assertThat(slotOccupancy.isFree("Dermatology", at(24 * 60 + 30), at(24 * 60 + 90))).isFalse();
+        assertThat(slotOccupancy.isFree("Dermatology", at(22 * 60), at(23 * 60))).isTrue();
+        assertThat(format(slotOccupancy.freeSlots("Dermatology", at(22 * 60), at(26 * 60), Duration.ofMinutes(60), 10)))
+                .containsExactly(at(22 * 60) + "/" + at(23 * 60), at(25 * 60) + "/" + at(26 * 60));
+    }
+
+    /**
+     * Tests that the free slots found on the bits match the ones found walking the bookings,
+     * on random schedules on the 15 minutes grid over three days.
+     */
+    @Test
+    void should_find_the_same_slots_as_the_interval_walk() {
+        Random random = new Random(7);
+        for (int run = 0; run < 50; run++) {
+            setup();
+            int minute = random.nextInt(120) / 15 * 15;
+            while (minute < 3 * 24 * 60) {
+                int length = 15 * (1 + random.nextInt(8));
+                booked.add(interval(at(minute), at(minute + length)));
+                minute += length + 15 * random.nextInt(10);
+            }
+
+            LocalDateTime from = at(15 * random.nextInt(96));
+            LocalDateTime to = from.plusMinutes(15 * (1 + random.nextInt(3 * 96)));
+            Duration duration = Duration.ofMinutes(15 * (1 + random.nextInt(8)));
+            List<BookedInterval> window = booked.stream()
+                    .filter(interval -> interval.getStartsAt().isBefore(to) && interval.getFinishesAt().isAfter(from))
+                    .collect(Collectors.toList());
+
+            assertThat(format(slotOccupancy.freeSlots("Dermatology", from, to, duration, 20)))
+                    .isEqualTo(format(AvailabilityService.freeSlots(window, from, to, duration, 20)));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.controllers.RoomController;
+import com.example.demo.entities.*;
+import com.example.demo.repositories.*;
+import com.example.demo.services.BulkDeleteService;
+import com.example.demo.services.ReferenceDataImportService;
+import com.example.demo.services.TableVersions;
+import com.example.demo.services.TableVersionsConfiguration;
+
+/**
+ * Checks that the table versions follow the committed writes. Runs without the test transaction,
+ * since the versions are only bumped after commit.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(TableVersionsConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TableVersionsUnitTest {
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanup() {
+        roomRepository.deleteAll();
+    }
+
+    @Test
+    void should_bump_the_version_on_committed_writes_only() {
+        long initial = tableVersions.current(Room.class);
+        String etag = tableVersions.etag(Room.class);
+
+        Room room = roomRepository.save(new Room("Dermatology"));
+        assertThat(tableVersions.current(Room.class)).isEqualTo(initial + 1);
+        assertThat(tableVersions.etag(Room.class)).isNotEqualTo(etag);
+
+        transactionTemplate.execute(status -> {
+            roomRepository.save(new Room("Oncology"));
+            roomRepository.flush();
+            status.setRollbackOnly();
+            return null;
+        });
+        assertThat(tableVersions.current(Room.class)).isEqualTo(initial + 1);
+
+        roomRepository.delete(room);
+        assertThat(tableVersions.current(Room.class)).isEqualTo(initial + 2);
+        assertThat(tableVersions.current(Doctor.class)).isZero();
+    }
+
+    /**
+     * Tests that the ETags change every time to live, for writes the versions don't see,
+     * and that two instances never share their ETags.
+     */
+    @Test
+    void should_change_the_etags_every_time_to_live() {
+        AtomicLong now = new AtomicLong(60_000);
+        TableVersions expiring = new TableVersions(60_000, now::get);
+        String etag = expiring.etag(Room.class);
+
+        now.addAndGet(59_999);
+        assertThat(expiring.etag(Room.class)).isEqualTo(etag);
+        now.incrementAndGet();
+        assertThat(expiring.etag(Room.class)).isNotEqualTo(etag);
+
+        assertThat(new TableVersions().etag(Room.class)).isNotEqualTo(new TableVersions().etag(Room.class));
+    }
+}
+
+@WebMvcTest(RoomController.class)
+@Import(TableVersions.class)
+class ConditionalGetUnitTest {
+
+    @MockBean
+    private RoomRepository roomRepository;
+
+    @MockBean
+    private ReferenceDataImportService referenceDataImportService;
+
+    @MockBean
+    private BulkDeleteService bulkDeleteService;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Tests that a matching If-None-Match is answered 304 without reading the repository,
+     * and that a new version of the table gets a full response again.
+     */
+    @Test
+    void shouldAnswerNotModifiedWithoutReadingTheTable() throws Exception {
+        when(roomRepository.findAll()).thenReturn(Collections.singletonList(new Room("Dermatology")));
+
+        String etag = mockMvc.perform(get("/api/rooms"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/rooms").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+        verify(roomRepository, times(1)).findAll();
+
+        tableVersions.bump(Room.class);
+        mockMvc.perform(get("/api/rooms").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].roomName").value("Dermatology"));
+        verify(roomRepository, times(2)).findAll();
+    }
+
+    /**
+     * Tests that a matching If-None-Match doesn't turn a request accepting no representation into a 304.
+     */
+    @Test
+    void shouldNotAnswerNotModifiedWhenNoRepresentationIsAcceptable() throws Exception {
+        when(roomRepository.findAll()).thenReturn(Collections.singletonList(new Room("Dermatology")));
+        String etag = mockMvc.perform(get("/api/rooms"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/rooms").header("If-None-Match", etag).header("Accept", "application/xml"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void shouldNotTagWrites() throws Exception {
+        mockMvc.perform(delete("/api/rooms"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.demo.benchmark;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo.TechhubApplication;
+import com.example.demo.entities.Appointment;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.AppointmentRepository;
+import com.example.demo.repositories.RoomRepository;
+
+/**
+ * Compares the linear scan over every appointment that createAppointment used to run with the
+ * overlap check on the (room_id, starts_at, finishes_at) index, at 10k, 100k and 1M appointments.
+ *
+ * The scan runs on a list already in memory, so it leaves out the reading and hydration of the
+ * whole table that findAll added to it: it is a lower bound of the old cost. The indexed check
+ * is a round trip to the application database, H2 in memory by default.
+ *
+ * Run it with:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=AppointmentOverlapBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentOverlapBenchmark {
+
+    private static final int ROOMS = 50;
+
+    private static final int CANDIDATES = 1024;
+
+    private static final int ROWS_PER_BATCH = 10_000;
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Param({"10000", "100000", "1000000"})
+    int appointments;
+
+    private ConfigurableApplicationContext context;
+
+    private AppointmentRepository appointmentRepository;
+
+    private List<Appointment> appointmentsList;
+
+    private Appointment[] candidates;
+
+    private int next;
+
+    @Setup
+    public void setupTrial() {
+        context = new SpringApplicationBuilder(TechhubApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=warn");
+        appointmentRepository = context.getBean(AppointmentRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        Room[] rooms = new Room[ROOMS];
+        for (int i = 0; i < ROOMS; i++) {
+            rooms[i] = context.getBean(RoomRepository.class).save(new Room("Room " + i));
+        }
+
+        // Hour long appointments, filling every room one slot after the other.
+        appointmentsList = new ArrayList<>(appointments);
+        List<Object[]> rows = new ArrayList<>(ROWS_PER_BATCH);
+        for (int i = 0; i < appointments; i++) {
+            LocalDateTime startsAt = ORIGIN.plusHours(i / ROOMS);
+            Appointment appointment = new Appointment(null, null, rooms[i % ROOMS], startsAt, startsAt.plusHours(1));
+            appointment.setId(i + 1L);
+            appointmentsList.add(appointment);
+
+            rows.add(new Object[] {appointment.getId(), appointment.getRoom().getRoomName(),
+                    Timestamp.valueOf(appointment.getStartsAt()), Timestamp.valueOf(appointment.getFinishesAt())});
+            if (rows.size() == ROWS_PER_BATCH || i == appointments - 1) {
+                jdbcTemplate.batchUpdate("insert into appointment (id, room_id, starts_at, finishes_at) values (?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+
+        // Quarter of an hour candidates spread over the whole booked period, so the scan
+        // stops on average half way through the list as it would for a random booking.
+        Random random = new Random(42);
+        int hours = appointments / ROOMS;
+        candidates = new Appointment[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++) {
+            LocalDateTime startsAt = ORIGIN.plusMinutes(random.nextInt(hours * 60));
+            candidates[i] = new Appointment(null, null, rooms[random.nextInt(ROOMS)], startsAt, startsAt.plusMinutes(15));
+        }
+    }
+
+    @TearDown
+    public void close() {
+        context.close();
+    }
+
+    private Appointment nextCandidate() {
+        return candidates[next++ & (CANDIDATES - 1)];
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        Appointment candidate = nextCandidate();
+        for (Appointment existingAppointment : appointmentsList) {
+            if (candidate.overlaps(existingAppointment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean indexedQuery() {
+        Appointment candidate = nextCandidate();
+        return appointmentRepository.existsOverlappingInRoom(candidate.getRoom().getRoomName(), candidate.getStartsAt(), candidate.getFinishesAt());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AppointmentOverlapBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.demo.JacksonConfiguration;
+import com.example.demo.entities.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Compares encoding and decoding a list of appointments, as GET /api/appointments returns it, in
+ * JSON with string dates and in CBOR and Smile with epoch dates, using the mappers configured like
+ * the application's, and prints the payload size of each format.
+ *
+ * Run it with:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=BinaryFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    private static final int APPOINTMENTS = 1000;
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    private ObjectMapper objectMapper;
+
+    private Appointment[] appointments;
+
+    private byte[] payload;
+
+    private static Jackson2ObjectMapperBuilder builder() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        new JacksonConfiguration().jackson2ObjectMapperBuilderCustomizer().customize(builder);
+        return builder;
+    }
+
+    @Setup
+    public void setupTrial() throws IOException {
+        switch (format) {
+            case "cbor":
+                objectMapper = JacksonConfiguration.binaryObjectMapper(builder(), new CBORFactory());
+                break;
+            case "smile":
+                objectMapper = JacksonConfiguration.binaryObjectMapper(builder(), new SmileFactory());
+                break;
+            default:
+                objectMapper = builder().build();
+        }
+
+        appointments = new Appointment[APPOINTMENTS];
+        LocalDateTime origin = LocalDateTime.of(2023, 4, 24, 8, 0);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya" + i % 200 + "@email.com");
+            patient.setId(i % 200 + 1);
+            Doctor doctor = new Doctor("Perla", "Amalia", 24, "p.amalia" + i % 20 + "@hospital.accwe");
+            doctor.setId(i % 20 + 1);
+            LocalDateTime startsAt = origin.plusMinutes(30L * i);
+            appointments[i] = new Appointment(patient, doctor, new Room("Room " + i % 10), startsAt, startsAt.plusMinutes(30));
+            appointments[i].setId(i + 1);
+        }
+
+        payload = objectMapper.writeValueAsBytes(appointments);
+        System.out.printf("%n%s: %d bytes for %d appointments%n", format, payload.length, APPOINTMENTS);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(appointments);
+    }
+
+    @Benchmark
+    public Appointment[] decode() throws IOException {
+        return objectMapper.readValue(payload, Appointment[].class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BinaryFormatBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
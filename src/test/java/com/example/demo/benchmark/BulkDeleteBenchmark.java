@@ -0,0 +1,102 @@
+package com.example.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.TechhubApplication;
+import com.example.demo.entities.Patient;
+import com.example.demo.repositories.PatientRepository;
+import com.example.demo.services.BulkDeleteService;
+import com.example.demo.services.ReferenceDataImportService;
+
+/**
+ * Compares emptying a table of 100k patients with JpaRepository.deleteAll, which loads every row
+ * and deletes it, and with the single set-based DELETE of BulkDeleteService, on the application
+ * running on H2.
+ *
+ * Run it with:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=BulkDeleteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BulkDeleteBenchmark {
+
+    @Param({"100000"})
+    int patients;
+
+    @Param({"load-then-delete", "bulk"})
+    String mode;
+
+    private ConfigurableApplicationContext context;
+
+    private PatientRepository patientRepository;
+
+    private BulkDeleteService bulkDeleteService;
+
+    private ReferenceDataImportService referenceDataImportService;
+
+    @Setup
+    public void setupTrial() {
+        context = new SpringApplicationBuilder(TechhubApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=warn");
+        patientRepository = context.getBean(PatientRepository.class);
+        bulkDeleteService = context.getBean(BulkDeleteService.class);
+        referenceDataImportService = context.getBean(ReferenceDataImportService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void insertPatients() {
+        List<Patient> toImport = new ArrayList<>(patients);
+        for (int i = 0; i < patients; i++) {
+            toImport.add(new Patient("Jose Luis", "Olaya", 37, "j.olaya" + i + "@email.com"));
+        }
+        referenceDataImportService.persistAll(toImport);
+    }
+
+    @TearDown
+    public void close() {
+        context.close();
+    }
+
+    @Benchmark
+    public long deleteAll() {
+        if ("bulk".equals(mode)) {
+            bulkDeleteService.deleteAllPatients();
+        } else {
+            patientRepository.deleteAll();
+        }
+        return patientRepository.count();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BulkDeleteBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.demo.DateTimeCodec;
+import com.example.demo.JacksonConfiguration;
+import com.example.demo.entities.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+
+/**
+ * Compares the JSON encoding and decoding of a list of appointments, as GET /api/appointments
+ * returns it, with the date times going through DateTimeCodec or through the DateTimeFormatter
+ * of the same pattern.
+ *
+ * Run it with the allocation profiler, which prints the bytes allocated per operation:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark="DateTimeCodecBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeCodecBenchmark {
+
+    private static final int APPOINTMENTS = 1000;
+
+    @Param({"codec", "formatter"})
+    String dates;
+
+    private ObjectMapper objectMapper;
+
+    private Appointment[] appointments;
+
+    private byte[] payload;
+
+    @Setup
+    public void setupTrial() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        new JacksonConfiguration().jackson2ObjectMapperBuilderCustomizer().customize(builder);
+        if ("formatter".equals(dates)) {
+            builder.serializers(new LocalDateTimeSerializer(DateTimeCodec.FORMATTER))
+                    .deserializers(new LocalDateTimeDeserializer(DateTimeCodec.FORMATTER));
+        }
+        objectMapper = builder.build();
+
+        appointments = new Appointment[APPOINTMENTS];
+        LocalDateTime origin = LocalDateTime.of(2023, 4, 24, 8, 0);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            Patient patient = new Patient("Jose Luis", "Olaya", 37, "j.olaya" + i % 200 + "@email.com");
+            patient.setId(i % 200 + 1);
+            Doctor doctor = new Doctor("Perla", "Amalia", 24, "p.amalia" + i % 20 + "@hospital.accwe");
+            doctor.setId(i % 20 + 1);
+            LocalDateTime startsAt = origin.plusMinutes(30L * i);
+            appointments[i] = new Appointment(patient, doctor, new Room("Room " + i % 10), startsAt, startsAt.plusMinutes(30));
+            appointments[i].setId(i + 1);
+        }
+        payload = objectMapper.writeValueAsBytes(appointments);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(appointments);
+    }
+
+    @Benchmark
+    public Appointment[] decode() throws IOException {
+        return objectMapper.readValue(payload, Appointment[].class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DateTimeCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.TechhubApplication;
+import com.example.demo.entities.Patient;
+import com.example.demo.repositories.PatientRepository;
+
+/**
+ * Compares inserting patients 100 at a time, in one transaction, with an id allocation size of 1,
+ * one sequence call per insert as with the previous generator, and of 50, on the application running
+ * on H2, and prints the statements per insert.
+ *
+ * Run it with:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=IdGenerationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    private static final int PATIENTS = 100;
+
+    @Param({"1", "50"})
+    int allocationSize;
+
+    private ConfigurableApplicationContext context;
+
+    private PatientRepository patientRepository;
+
+    private Statistics statistics;
+
+    private long inserts;
+
+    private long next;
+
+    @Setup
+    public void setupTrial() {
+        context = new SpringApplicationBuilder(TechhubApplication.class)
+                .web(WebApplicationType.NONE)
+                // Arguments, so they override application.properties.
+                .run("--spring.jpa.properties.accwe.id.allocation_size=" + allocationSize,
+                     "--logging.level.root=warn");
+        patientRepository = context.getBean(PatientRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatistics() {
+        statistics.clear();
+        inserts = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatements() {
+        System.out.printf("%nallocationSize=%d: %.3f statements per insert%n", allocationSize, (double) statistics.getPrepareStatementCount() / inserts);
+        patientRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void close() {
+        context.close();
+    }
+
+    /**
+     * @return the 100 patients inserted in one transaction, counted as 100 operations.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PATIENTS)
+    public List<Patient> insert() {
+        List<Patient> patients = new ArrayList<>(PATIENTS);
+        for (int i = 0; i < PATIENTS; i++) {
+            patients.add(new Patient("Jose Luis", "Olaya", 37, "j.olaya" + next++ + "@email.com"));
+        }
+        inserts += PATIENTS;
+        return patientRepository.saveAll(patients);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IdGenerationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.demo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import com.example.demo.TechhubApplication;
+import com.example.demo.controllers.DoctorController;
+import com.example.demo.controllers.RoomController;
+import com.example.demo.entities.Doctor;
+import com.example.demo.entities.Room;
+import com.example.demo.repositories.DoctorRepository;
+import com.example.demo.repositories.RoomRepository;
+
+/**
+ * Compares GET /api/doctors/{id} and GET /api/rooms/{roomName} without caches, with the second-level
+ * and query caches, and with the cache of encoded responses on top of them, calling the controllers
+ * of the application running on H2, and prints the database round trips per request.
+ *
+ * Run it with:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ReferenceDataCacheBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReferenceDataCacheBenchmark {
+
+    private static final int ENTITIES = 1024;
+
+    @Param({"none", "second-level", "encoded"})
+    String cache;
+
+    private ConfigurableApplicationContext context;
+
+    private DoctorController doctorController;
+
+    private RoomController roomController;
+
+    private Statistics statistics;
+
+    private long[] doctorIds;
+
+    private String[] roomNames;
+
+    private int next;
+
+    private long requests;
+
+    @Setup
+    public void setupTrial() {
+        boolean secondLevel = !"none".equals(cache);
+        boolean encoded = "encoded".equals(cache);
+        context = new SpringApplicationBuilder(TechhubApplication.class)
+                .web(WebApplicationType.NONE)
+                // Arguments, so they override application.properties.
+                .run("--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevel,
+                     "--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevel,
+                     "--accwe.response-cache.max-entries=" + (encoded ? ENTITIES * 2 : 0),
+                     "--logging.level.root=warn");
+        doctorController = context.getBean(DoctorController.class);
+        roomController = context.getBean(RoomController.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        DoctorRepository doctorRepository = context.getBean(DoctorRepository.class);
+        RoomRepository roomRepository = context.getBean(RoomRepository.class);
+        doctorIds = new long[ENTITIES];
+        roomNames = new String[ENTITIES];
+        for (int i = 0; i < ENTITIES; i++) {
+            doctorIds[i] = doctorRepository.save(new Doctor("Perla", "Amalia", 24, "p.amalia" + i + "@hospital.accwe")).getId();
+            roomNames[i] = roomRepository.save(new Room("Room " + i)).getRoomName();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatistics() {
+        statistics.clear();
+        requests = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printRoundTrips() {
+        System.out.printf("%ncache=%s: %.3f statements per request%n", cache, (double) statistics.getPrepareStatementCount() / requests);
+    }
+
+    @TearDown
+    public void close() {
+        context.close();
+    }
+
+    private int nextEntity() {
+        requests++;
+        return next++ & (ENTITIES - 1);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> getDoctorById() {
+        return doctorController.getDoctorById(doctorIds[nextEntity()], null);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> getRoomByRoomName() {
+        return roomController.getRoomByRoomName(roomNames[nextEntity()], null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReferenceDataCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
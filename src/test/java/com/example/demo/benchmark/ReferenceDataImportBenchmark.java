@@ -0,0 +1,114 @@
+package com.example.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.TechhubApplication;
+import com.example.demo.dto.ImportReport;
+import com.example.demo.entities.Patient;
+import com.example.demo.repositories.PatientRepository;
+import com.example.demo.services.ReferenceDataImportService;
+
+/**
+ * Imports 100k patients one save and one transaction at a time, like one POST /api/patient each,
+ * and in a single import with JDBC batches, and prints the rows per second.
+ *
+ * Run it on H2 with:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ReferenceDataImportBenchmark
+ *
+ * and on MySQL with:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark="ReferenceDataImportBenchmark -jvmArgsAppend '-Dspring.datasource.url=jdbc:mysql://172.17.0.2:3306/accwe-hospital?rewriteBatchedStatements=true -Dspring.datasource.username=root -Dspring.datasource.password=root -Dspring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL5InnoDBDialect'"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ReferenceDataImportBenchmark {
+
+    @Param({"100000"})
+    int patients;
+
+    @Param({"single", "batch"})
+    String mode;
+
+    private ConfigurableApplicationContext context;
+
+    private PatientRepository patientRepository;
+
+    private ReferenceDataImportService referenceDataImportService;
+
+    private List<Patient> toImport;
+
+    private long startedAt;
+
+    @Setup
+    public void setupTrial() {
+        context = new SpringApplicationBuilder(TechhubApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=warn");
+        patientRepository = context.getBean(PatientRepository.class);
+        referenceDataImportService = context.getBean(ReferenceDataImportService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void createPatients() {
+        toImport = new ArrayList<>(patients);
+        for (int i = 0; i < patients; i++) {
+            toImport.add(new Patient("Jose Luis", "Olaya", 37, "j.olaya" + i + "@email.com"));
+        }
+        startedAt = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printRowsPerSecond() {
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        System.out.printf("%nmode=%s: %.0f rows/s%n", mode, patients / seconds);
+        patientRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void close() {
+        context.close();
+    }
+
+    @Benchmark
+    public int importPatients() {
+        if ("batch".equals(mode)) {
+            ImportReport report = referenceDataImportService.persistAll(toImport);
+            return report.getCreated();
+        }
+        for (Patient patient : toImport) {
+            patientRepository.save(patient);
+        }
+        return toImport.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReferenceDataImportBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
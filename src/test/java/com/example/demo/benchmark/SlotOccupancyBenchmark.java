@@ -0,0 +1,182 @@
+package com.example.demo.benchmark;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.demo.dto.FreeSlot;
+import com.example.demo.dto.OccupancyFootprint;
+import com.example.demo.repositories.BookedInterval;
+import com.example.demo.services.AvailabilityService;
+import com.example.demo.services.SlotOccupancy;
+
+/**
+ * Compares the slot occupancy bitsets with walking the sorted bookings of the day, for overlap
+ * checks and free slot searches on a month of 15 minutes bookings, and prints the memory
+ * footprint of the loaded bitsets.
+ *
+ * Run it with:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=SlotOccupancyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotOccupancyBenchmark {
+
+    private static final int DAYS = 30;
+
+    private static final int CANDIDATES = 1024;
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    private static final Duration DURATION = Duration.ofMinutes(30);
+
+    @Param({"10", "100"})
+    int rooms;
+
+    private Map<String, List<BookedInterval>> bookedByRoomDay;
+
+    private SlotOccupancy slotOccupancy;
+
+    private String[] candidateRooms;
+
+    private LocalDateTime[] candidateStarts;
+
+    private int next;
+
+    private static BookedInterval interval(String roomName, LocalDateTime startsAt, LocalDateTime finishesAt) {
+        return new BookedInterval() {
+            public String getRoomName() { return roomName; }
+            public Long getDoctorId() { return null; }
+            public Long getPatientId() { return null; }
+            public LocalDateTime getStartsAt() { return startsAt; }
+            public LocalDateTime getFinishesAt() { return finishesAt; }
+        };
+    }
+
+    private static String key(String roomName, LocalDateTime time) {
+        return roomName + "|" + time.toLocalDate();
+    }
+
+    @Setup
+    public void setupTrial() {
+        Random random = new Random(42);
+        Map<String, List<BookedInterval>> bookedByRoom = new HashMap<>();
+        bookedByRoomDay = new HashMap<>();
+
+        // Working days from 8:00 to 20:00, booked about two thirds of the time in 15 to 60 minutes appointments.
+        for (int r = 0; r < rooms; r++) {
+            String roomName = "Room " + r;
+            List<BookedInterval> booked = new ArrayList<>();
+            for (int day = 0; day < DAYS; day++) {
+                LocalDateTime startsAt = ORIGIN.plusDays(day).plusHours(8);
+                LocalDateTime closesAt = startsAt.plusHours(12);
+                while (startsAt.isBefore(closesAt)) {
+                    LocalDateTime finishesAt = startsAt.plusMinutes(15L * (1 + random.nextInt(4)));
+                    if (random.nextInt(3) > 0) {
+                        BookedInterval interval = interval(roomName, startsAt, finishesAt);
+                        booked.add(interval);
+                        bookedByRoomDay.computeIfAbsent(key(roomName, startsAt), k -> new ArrayList<>()).add(interval);
+                    }
+                    startsAt = finishesAt;
+                }
+            }
+            bookedByRoom.put(roomName, booked);
+        }
+
+        slotOccupancy = new SlotOccupancy(5, (roomName, from, to) -> bookedByRoom.get(roomName).stream()
+                .filter(interval -> interval.getStartsAt().isBefore(to) && interval.getFinishesAt().isAfter(from))
+                .collect(Collectors.toList()));
+
+        candidateRooms = new String[CANDIDATES];
+        candidateStarts = new LocalDateTime[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidateRooms[i] = "Room " + random.nextInt(rooms);
+            candidateStarts[i] = ORIGIN.plusDays(random.nextInt(DAYS)).plusHours(8).plusMinutes(15L * random.nextInt(48));
+        }
+
+        // Loads every room and day up front, so the benchmark measures the lookups only.
+        for (int r = 0; r < rooms; r++) {
+            slotOccupancy.freeSlots("Room " + r, ORIGIN, ORIGIN.plusDays(DAYS), DURATION, 1);
+        }
+    }
+
+    @TearDown
+    public void printFootprint() {
+        OccupancyFootprint footprint = slotOccupancy.footprint();
+        System.out.printf("%nFootprint: %d rooms, %d days (%d exact), %d bytes of bitsets, about %d bytes with overhead%n",
+                footprint.getRooms(), footprint.getDays(), footprint.getExactDays(), footprint.getBitsetBytes(), footprint.getEstimatedBytes());
+    }
+
+    private int nextCandidate() {
+        return next++ & (CANDIDATES - 1);
+    }
+
+    @Benchmark
+    public boolean intervalWalkIsFree() {
+        int i = nextCandidate();
+        LocalDateTime startsAt = candidateStarts[i];
+        LocalDateTime finishesAt = startsAt.plus(DURATION);
+        List<BookedInterval> booked = bookedByRoomDay.get(key(candidateRooms[i], startsAt));
+        if (booked != null) {
+            for (BookedInterval interval : booked) {
+                if (interval.getStartsAt().isBefore(finishesAt) && interval.getFinishesAt().isAfter(startsAt)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public Boolean bitsetIsFree() {
+        int i = nextCandidate();
+        return slotOccupancy.isFree(candidateRooms[i], candidateStarts[i], candidateStarts[i].plus(DURATION));
+    }
+
+    @Benchmark
+    public List<FreeSlot> intervalWalkFreeSlots() {
+        int i = nextCandidate();
+        LocalDateTime from = candidateStarts[i].toLocalDate().atStartOfDay();
+        List<BookedInterval> booked = bookedByRoomDay.get(key(candidateRooms[i], from));
+        return AvailabilityService.freeSlots(booked != null ? booked : new ArrayList<>(), from, from.plusDays(1), DURATION, 10);
+    }
+
+    @Benchmark
+    public List<FreeSlot> bitsetFreeSlots() {
+        int i = nextCandidate();
+        LocalDateTime from = candidateStarts[i].toLocalDate().atStartOfDay();
+        return slotOccupancy.freeSlots(candidateRooms[i], from, from.plusDays(1), DURATION, 10);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SlotOccupancyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}